@@ -0,0 +1,95 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasoluna.gfw.common.validator.constraints.ByteSize;
+import org.terasoluna.gfw.common.validator.constraintvalidators.ByteSizeValidator;
+
+/**
+ * Benchmarks of {@link ByteSizeValidator#isValid(CharSequence, javax.validation.ConstraintValidatorContext)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteSizeValidatorBenchmark {
+
+    /**
+     * name of the field whose annotation is used.
+     */
+    @Param({ "utf8", "windows31j" })
+    public String charset;
+
+    /**
+     * addresses to validate.
+     */
+    private String[] addresses;
+
+    /**
+     * validator to benchmark.
+     */
+    private ByteSizeValidator validator;
+
+    /**
+     * Load the corpus and initialize the validator.
+     * @throws NoSuchFieldException never thrown
+     */
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        addresses = Corpus.ADDRESSES.load();
+        validator = new ByteSizeValidator();
+        validator.initialize(Form.class.getDeclaredField(charset)
+                .getAnnotation(ByteSize.class));
+    }
+
+    /**
+     * validate each address.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void isValid(Blackhole bh) {
+        for (String address : addresses) {
+            bh.consume(validator.isValid(address, null));
+        }
+    }
+
+    /**
+     * holder of the annotations.
+     */
+    static class Form {
+        @ByteSize(max = 120)
+        String utf8;
+
+        @ByteSize(max = 80, charset = "windows-31j")
+        String windows31j;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasoluna.gfw.common.codepoints.CodePoints;
+import org.terasoluna.gfw.common.codepoints.catalog.ASCIIPrintableChars;
+import org.terasoluna.gfw.common.codepoints.catalog.JIS_X_0208_Hiragana;
+import org.terasoluna.gfw.common.codepoints.catalog.JIS_X_0208_Kanji;
+import org.terasoluna.gfw.common.codepoints.catalog.JIS_X_0208_Katakana;
+import org.terasoluna.gfw.common.codepoints.catalog.JIS_X_0208_LatinLetters;
+import org.terasoluna.gfw.common.codepoints.catalog.JIS_X_0208_SpecialChars;
+
+/**
+ * Benchmarks of {@link CodePoints#firstExcludedCodePoint(String)} and
+ * {@link CodePoints#containsAllInAnyCodePoints(String, CodePoints...)} over a whole corpus.
+ * <p>
+ * {@link #perCodePoint(Blackhole)} checks code point by code point without the Latin-1 fast path, as the baseline of
+ * {@link #firstExcludedCodePoint(Blackhole)} on the {@link Corpus#ASCII} corpus.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodePointsBenchmark {
+
+    /**
+     * corpus to check.
+     */
+    @Param({ "NAMES", "ADDRESSES", "ASCII" })
+    public Corpus corpus;
+
+    /**
+     * entries of the corpus.
+     */
+    private String[] entries;
+
+    /**
+     * union of the JIS X 0208 catalogs.
+     */
+    private CodePoints jisX0208;
+
+    /**
+     * JIS X 0208 catalogs to check one by one.
+     */
+    private CodePoints[] catalogs;
+
+    /**
+     * Load the corpus and the catalogs.
+     */
+    @Setup
+    public void setUp() {
+        entries = corpus.load();
+        catalogs = new CodePoints[] { CodePoints.of(JIS_X_0208_Kanji.class),
+                CodePoints.of(JIS_X_0208_Hiragana.class), CodePoints.of(
+                        JIS_X_0208_Katakana.class), CodePoints.of(
+                                JIS_X_0208_LatinLetters.class), CodePoints.of(
+                                        JIS_X_0208_SpecialChars.class),
+                CodePoints.of(ASCIIPrintableChars.class) };
+        CodePoints united = catalogs[0];
+        for (int i = 1; i < catalogs.length; i++) {
+            united = united.union(catalogs[i]);
+        }
+        jisX0208 = united;
+    }
+
+    /**
+     * check each entry by the united code points.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void firstExcludedCodePoint(Blackhole bh) {
+        for (String entry : entries) {
+            bh.consume(jisX0208.firstExcludedCodePoint(entry));
+        }
+    }
+
+    /**
+     * check each entry by the united code points code point by code point.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void perCodePoint(Blackhole bh) {
+        for (String entry : entries) {
+            bh.consume(jisX0208.forEachExcludedCodePoint(entry, (codePoint,
+                    index) -> false));
+        }
+    }
+
+    /**
+     * check each entry by the catalogs one by one.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void containsAllInAnyCodePoints(Blackhole bh) {
+        for (String entry : entries) {
+            bh.consume(CodePoints.containsAllInAnyCodePoints(entry, catalogs));
+        }
+    }
+}
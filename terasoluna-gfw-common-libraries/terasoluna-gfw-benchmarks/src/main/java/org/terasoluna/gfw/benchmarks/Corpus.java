@@ -0,0 +1,92 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input corpora of the benchmarks. Each corpus is a UTF-8 text resource with one entry per line. Lines starting with {@code #}
+ * are ignored.
+ * <ul>
+ * <li>{@link #NAMES} : Japanese person names in kanji and hiragana separated by a fullwidth space</li>
+ * <li>{@link #ADDRESSES} : Japanese addresses including fullwidth digits and building names</li>
+ * <li>{@link #KANA} : person names in halfwidth katakana</li>
+ * <li>{@link #ASCII} : identifiers, e-mail addresses, phone numbers and URLs in ASCII</li>
+ * </ul>
+ */
+public enum Corpus {
+
+    /**
+     * Japanese person names.
+     */
+    NAMES("names.txt"),
+
+    /**
+     * Japanese addresses.
+     */
+    ADDRESSES("addresses.txt"),
+
+    /**
+     * person names in halfwidth katakana.
+     */
+    KANA("kana.txt"),
+
+    /**
+     * identifiers, e-mail addresses, phone numbers and URLs in ASCII.
+     */
+    ASCII("codes.txt");
+
+    /**
+     * resource name.
+     */
+    private final String resource;
+
+    /**
+     * Constructor.
+     * @param resource resource name
+     */
+    Corpus(String resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Load the entries of the corpus.
+     * @return entries
+     * @throws UncheckedIOException if the resource cannot be read
+     */
+    public String[] load() {
+        List<String> lines = new ArrayList<String>();
+        try (InputStream in = Corpus.class.getResourceAsStream(resource);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+}
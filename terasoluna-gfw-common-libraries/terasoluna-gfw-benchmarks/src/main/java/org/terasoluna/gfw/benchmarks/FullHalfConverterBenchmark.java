@@ -0,0 +1,106 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasoluna.gfw.common.fullhalf.DefaultFullHalf;
+import org.terasoluna.gfw.common.fullhalf.FullHalfConverter;
+
+/**
+ * Benchmarks of {@link FullHalfConverter#toFullwidth(String)} and {@link FullHalfConverter#toHalfwidth(String)} with
+ * {@link DefaultFullHalf#INSTANCE}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FullHalfConverterBenchmark {
+
+    /**
+     * halfwidth katakana names.
+     */
+    private String[] halfwidth;
+
+    /**
+     * fullwidth katakana names.
+     */
+    private String[] fullwidth;
+
+    /**
+     * fullwidth addresses.
+     */
+    private String[] addresses;
+
+    /**
+     * Load the corpora.
+     */
+    @Setup
+    public void setUp() {
+        halfwidth = Corpus.KANA.load();
+        fullwidth = new String[halfwidth.length];
+        for (int i = 0; i < halfwidth.length; i++) {
+            fullwidth[i] = DefaultFullHalf.INSTANCE.toFullwidth(halfwidth[i]);
+        }
+        addresses = Corpus.ADDRESSES.load();
+    }
+
+    /**
+     * convert halfwidth katakana names including voiced sound marks to fullwidth.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void toFullwidth(Blackhole bh) {
+        for (String s : halfwidth) {
+            bh.consume(DefaultFullHalf.INSTANCE.toFullwidth(s));
+        }
+    }
+
+    /**
+     * convert fullwidth katakana names to halfwidth.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void toHalfwidth(Blackhole bh) {
+        for (String s : fullwidth) {
+            bh.consume(DefaultFullHalf.INSTANCE.toHalfwidth(s));
+        }
+    }
+
+    /**
+     * convert addresses mostly consist of kanji to halfwidth.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void toHalfwidthAddresses(Blackhole bh) {
+        for (String s : addresses) {
+            bh.consume(DefaultFullHalf.INSTANCE.toHalfwidth(s));
+        }
+    }
+}
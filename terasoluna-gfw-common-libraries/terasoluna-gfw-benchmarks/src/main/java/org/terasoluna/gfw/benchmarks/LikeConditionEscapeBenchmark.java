@@ -0,0 +1,103 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terasoluna.gfw.common.query.LikeConditionEscape;
+
+/**
+ * Benchmarks of {@link LikeConditionEscape}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LikeConditionEscapeBenchmark {
+
+    /**
+     * escape which escapes fullwidth wildcards.
+     */
+    private final LikeConditionEscape withFullWidth = LikeConditionEscape
+            .withFullWidthWildcardsEscape();
+
+    /**
+     * escape which does not escape fullwidth wildcards.
+     */
+    private final LikeConditionEscape withoutFullWidth = LikeConditionEscape
+            .withoutFullWidthWildcardsEscape();
+
+    /**
+     * search conditions. a part of them include wildcards.
+     */
+    private String[] conditions;
+
+    /**
+     * Load the corpus and put wildcards into a part of entries.
+     */
+    @Setup
+    public void setUp() {
+        String[] names = Corpus.NAMES.load();
+        conditions = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            switch (i % 4) {
+            case 0:
+                conditions[i] = names[i] + "%";
+                break;
+            case 1:
+                conditions[i] = "＿" + names[i];
+                break;
+            default:
+                conditions[i] = names[i];
+            }
+        }
+    }
+
+    /**
+     * escape conditions including fullwidth wildcards.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void toContainingConditionWithFullWidth(Blackhole bh) {
+        for (String condition : conditions) {
+            bh.consume(withFullWidth.toContainingCondition(condition));
+        }
+    }
+
+    /**
+     * escape conditions without fullwidth wildcards.
+     * @param bh blackhole
+     */
+    @Benchmark
+    public void toStartingWithCondition(Blackhole bh) {
+        for (String condition : conditions) {
+            bh.consume(withoutFullWidth.toStartingWithCondition(condition));
+        }
+    }
+}
@@ -0,0 +1,607 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable primitive storage of code points used by {@link CodePoints}.
+ * <p>
+ * Code points are held as a range list, that is sorted and disjoint pairs of the first and the last code point (inclusive) of
+ * each range. Contiguous blocks such as Hiragana, Katakana or Latin letters collapse to a few ranges, and set operations are
+ * done by merging the range lists in linear time.
+ * </p>
+ * <p>
+ * For the fast membership check, code points in the BMP (U+0000 - U+FFFF) are also held in a bitmap which is derived from the
+ * ranges and trimmed to the highest used word. The other values (supplementary code points) are looked up by binary search
+ * over the ranges. Membership check does not box the code point.
+ * </p>
+ * @since 5.7.0
+ */
+final class CodePointTable {
+
+    /**
+     * empty table.
+     */
+    static final CodePointTable EMPTY = new CodePointTable(new int[0]);
+
+    /**
+     * the first code point which is not in the BMP.
+     */
+    private static final int BMP_LIMIT = 0x10000;
+
+    /**
+     * the first code point which is not in Latin-1.
+     */
+    private static final int LATIN1_LIMIT = 0x100;
+
+    /**
+     * code points handled char by char by {@link CodePointsScanner}, that is line terminators and supplementary code points.
+     */
+    private static final CodePointTable SCANNER_SPECIALS = ofRanges(new int[] {
+            '\n', '\n', '\r', '\r', BMP_LIMIT, Character.MAX_CODE_POINT }, 3);
+
+    /**
+     * sorted and disjoint pairs of the first and the last code point (inclusive) of each range. adjacent ranges are merged.
+     */
+    private final int[] ranges;
+
+    /**
+     * bitmap of the code points in the BMP. the bit {@code (cp & 63)} of {@code bmp[cp >>> 6]} is set if {@code cp} is
+     * included.
+     */
+    private final long[] bmp;
+
+    /**
+     * bitmap of the Latin-1 code points (U+0000 - U+00FF), always 4 words so that any char below {@code 0x100} is looked up
+     * without bounds checking against the length of {@link #bmp}.
+     */
+    private final long[] latin1;
+
+    /**
+     * index in {@link #ranges} of the first range whose last code point is not in the BMP.
+     */
+    private final int supplementaryStart;
+
+    /**
+     * the number of code points.
+     */
+    private final int size;
+
+    /**
+     * hash code compatible with {@code Set<Integer>#hashCode()}.
+     */
+    private final int hash;
+
+    /**
+     * table to scan runs of chars in bulk by {@link CodePointsScanner}. created lazily.
+     */
+    private volatile CodePointTable scannerTable;
+
+    /**
+     * Constructor.
+     * @param ranges normalized ranges
+     */
+    private CodePointTable(int[] ranges) {
+        this.ranges = ranges;
+        this.bmp = bitmap(ranges);
+        this.latin1 = Arrays.copyOf(bmp, LATIN1_LIMIT >>> 6);
+        int start = ranges.length;
+        long n = 0;
+        long h = 0;
+        for (int i = ranges.length - 2; i >= 0; i -= 2) {
+            long first = ranges[i];
+            long last = ranges[i + 1];
+            long count = last - first + 1;
+            n += count;
+            // sum of first..last. either count or (first + last) is even
+            h += (count & 1) == 0 ? (count / 2) * (first + last)
+                    : count * ((first + last) / 2);
+            if (last < 0 || last >= BMP_LIMIT) {
+                start = i;
+            }
+        }
+        this.supplementaryStart = start;
+        this.size = (int) Math.min(n, Integer.MAX_VALUE);
+        this.hash = (int) h;
+    }
+
+    /**
+     * Create a table from the given code points.
+     * @param codePoints code points. may contain duplicates. the array may be modified.
+     * @param length the number of valid elements in {@code codePoints}
+     * @return table
+     */
+    static CodePointTable of(int[] codePoints, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(codePoints, 0, length);
+        int[] r = new int[length * 2];
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            int cp = codePoints[i];
+            if (n > 0 && r[n - 1] != Integer.MAX_VALUE && cp <= r[n - 1] + 1) {
+                r[n - 1] = Math.max(r[n - 1], cp);
+            } else {
+                r[n++] = cp;
+                r[n++] = cp;
+            }
+        }
+        return new CodePointTable(Arrays.copyOf(r, n));
+    }
+
+    /**
+     * Create a table from the given code points.
+     * @param codePoints code points. {@code null} elements are ignored.
+     * @return table
+     */
+    static CodePointTable of(Iterable<Integer> codePoints) {
+        int[] buf = new int[16];
+        int n = 0;
+        for (Integer cp : codePoints) {
+            if (cp == null) {
+                continue;
+            }
+            if (n == buf.length) {
+                buf = Arrays.copyOf(buf, n << 1);
+            }
+            buf[n++] = cp;
+        }
+        return of(buf, n);
+    }
+
+    /**
+     * Create a table from the code points in the given strings.
+     * @param strings strings which include target code points
+     * @return table
+     */
+    static CodePointTable of(String... strings) {
+        int total = 0;
+        for (String str : strings) {
+            total += str.length();
+        }
+        int[] buf = new int[total];
+        int n = 0;
+        for (String str : strings) {
+            int len = str.length();
+            int codePoint;
+            for (int i = 0; i < len; i += Character.charCount(codePoint)) {
+                codePoint = str.codePointAt(i);
+                buf[n++] = codePoint;
+            }
+        }
+        return of(buf, n);
+    }
+
+    /**
+     * Create a table from the given ranges. the ranges may be unsorted, overlapped or adjacent.
+     * @param ranges pairs of the first and the last code point (inclusive) of each range
+     * @param rangeCount the number of ranges in {@code ranges}
+     * @return table
+     * @throws IllegalArgumentException if the last code point of a range is less than the first one
+     */
+    static CodePointTable ofRanges(int[] ranges, int rangeCount) {
+        long[] packed = new long[rangeCount];
+        for (int i = 0; i < rangeCount; i++) {
+            int first = ranges[2 * i];
+            int last = ranges[2 * i + 1];
+            if (last < first) {
+                throw new IllegalArgumentException("invalid range (first = "
+                        + first + ", last = " + last + ")");
+            }
+            // sort by the first code point keeping the last code point
+            packed[i] = ((long) first << 32) | (last & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        int[] r = new int[rangeCount * 2];
+        int n = 0;
+        for (long p : packed) {
+            int first = (int) (p >> 32);
+            int last = (int) p;
+            if (n > 0 && (r[n - 1] == Integer.MAX_VALUE || first <= r[n
+                    - 1] + 1)) {
+                r[n - 1] = Math.max(r[n - 1], last);
+            } else {
+                r[n++] = first;
+                r[n++] = last;
+            }
+        }
+        return n == 0 ? EMPTY : new CodePointTable(Arrays.copyOf(r, n));
+    }
+
+    /**
+     * Create a table from the bitmap of the BMP and the ranges of the supplementary code points.
+     * @param bmpWords bitmap of the code points in the BMP
+     * @param supplementaryRanges ascending pairs of the first and the last supplementary code point (inclusive) of each range
+     * @param rangeCount the number of ranges in {@code supplementaryRanges}
+     * @return table
+     * @throws IllegalArgumentException if the bitmap exceeds the BMP or a range includes a code point in the BMP
+     */
+    static CodePointTable of(long[] bmpWords, int[] supplementaryRanges,
+            int rangeCount) {
+        if (bmpWords.length > BMP_LIMIT >>> 6) {
+            throw new IllegalArgumentException("bitmap exceeds the BMP (length = "
+                    + bmpWords.length + ")");
+        }
+        int[] r = new int[bitmapRangeCount(bmpWords) * 2 + rangeCount * 2];
+        int n = 0;
+        int first = -1;
+        for (int i = 0; i < bmpWords.length; i++) {
+            long word = bmpWords[i];
+            for (int bit = 0; bit < 64; bit++) {
+                boolean set = (word & (1L << bit)) != 0;
+                if (set && first < 0) {
+                    first = (i << 6) + bit;
+                } else if (!set && first >= 0) {
+                    r[n++] = first;
+                    r[n++] = (i << 6) + bit - 1;
+                    first = -1;
+                }
+            }
+        }
+        if (first >= 0) {
+            r[n++] = first;
+            r[n++] = (bmpWords.length << 6) - 1;
+        }
+        for (int i = 0; i < rangeCount; i++) {
+            int f = supplementaryRanges[2 * i];
+            if (f >= 0 && f < BMP_LIMIT) {
+                throw new IllegalArgumentException("not a supplementary code point (codePoint = "
+                        + f + ")");
+            }
+            r[n++] = f;
+            r[n++] = supplementaryRanges[2 * i + 1];
+        }
+        return ofRanges(r, n / 2);
+    }
+
+    /**
+     * returns whether the given code point is included.
+     * @param codePoint code point to check
+     * @return {@code true} if included
+     */
+    boolean contains(int codePoint) {
+        if (codePoint >= 0 && codePoint < BMP_LIMIT) {
+            int index = codePoint >>> 6;
+            return index < bmp.length && (bmp[index] & (1L << codePoint)) != 0;
+        }
+        // binary search the range whose first code point is the greatest one less than or equal to the given code point
+        int low = 0;
+        int high = (ranges.length >>> 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ranges[mid << 1] <= codePoint) {
+                if (codePoint <= ranges[(mid << 1) + 1]) {
+                    return true;
+                }
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * returns the char index of the first code point in the given range which is not included.
+     * <p>
+     * Latin-1 chars, which are most of the input such as digits, letters and punctuation, are checked against the 256-bit
+     * Latin-1 bitmap without decoding code points. Only the other chars fall back to the general path.
+     * </p>
+     * @param s chars to check
+     * @param start index of the first char
+     * @param end index after the last char. must not split a surrogate pair.
+     * @return char index of the first code point which is not included. {@code -1} if all code points are included.
+     */
+    int indexOfExcluded(CharSequence s, int start, int end) {
+        long[] mask = latin1;
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (c < LATIN1_LIMIT) {
+                if ((mask[c >>> 6] & (1L << c)) == 0) {
+                    return i;
+                }
+                i++;
+            } else {
+                int codePoint = Character.codePointAt(s, i);
+                if (!contains(codePoint)) {
+                    return i;
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * returns the table to scan runs of chars in bulk by {@link CodePointsScanner}, that is this table without line terminators
+     * and supplementary code points. {@link #indexOfExcluded(CharSequence, int, int)} of the returned table stops at the chars
+     * which the scanner must handle char by char.
+     * @return table for the scanner
+     */
+    CodePointTable scannerTable() {
+        CodePointTable t = scannerTable;
+        if (t == null) {
+            // benign race: the table is immutable
+            t = subtract(SCANNER_SPECIALS);
+            scannerTable = t;
+        }
+        return t;
+    }
+
+    /**
+     * returns the number of code points.
+     * @return the number of code points
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * returns the number of ranges.
+     * @return the number of ranges
+     */
+    int rangeCount() {
+        return ranges.length >>> 1;
+    }
+
+    /**
+     * returns all code points in ascending order.
+     * @return array of code points
+     */
+    int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (long v = ranges[i]; v <= ranges[i + 1]; v++) {
+                result[n++] = (int) v;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * returns the code points as ranges.
+     * @return sorted and disjoint pairs of the first and the last code point (inclusive) of each range
+     */
+    int[] toRanges() {
+        return ranges.clone();
+    }
+
+    /**
+     * returns the bitmap of the code points in the BMP. the returned array must not be modified.
+     * @return bitmap trimmed to the highest used word
+     */
+    long[] bmpWords() {
+        return bmp;
+    }
+
+    /**
+     * returns the code points which are not in the BMP as ranges.
+     * @return pairs of the first and the last code point (inclusive) of each range in ascending order
+     */
+    int[] supplementaryRanges() {
+        int[] r = Arrays.copyOfRange(ranges, supplementaryStart,
+                ranges.length);
+        if (r.length > 0 && r[0] >= 0 && r[0] < BMP_LIMIT) {
+            // split the range which straddles the end of the BMP
+            r[0] = BMP_LIMIT;
+        }
+        return r;
+    }
+
+    /**
+     * returns the code points as an unmodifiable {@code Set<Integer>}.
+     * @return set of code points
+     */
+    Set<Integer> toSet() {
+        Set<Integer> s = new HashSet<Integer>(Math.max((int) (size / .75f) + 1,
+                16));
+        for (int cp : toArray()) {
+            s.add(cp);
+        }
+        return Collections.unmodifiableSet(s);
+    }
+
+    /**
+     * unite two tables
+     * @param other table to unite
+     * @return united table
+     */
+    CodePointTable union(CodePointTable other) {
+        if (other.ranges.length == 0) {
+            return this;
+        }
+        if (this.ranges.length == 0) {
+            return other;
+        }
+        int[] a = this.ranges;
+        int[] b = other.ranges;
+        int[] r = new int[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int first;
+            int last;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                first = a[i];
+                last = a[i + 1];
+                i += 2;
+            } else {
+                first = b[j];
+                last = b[j + 1];
+                j += 2;
+            }
+            if (n > 0 && (r[n - 1] == Integer.MAX_VALUE || first <= r[n - 1]
+                    + 1)) {
+                r[n - 1] = Math.max(r[n - 1], last);
+            } else {
+                r[n++] = first;
+                r[n++] = last;
+            }
+        }
+        return new CodePointTable(Arrays.copyOf(r, n));
+    }
+
+    /**
+     * subtract two tables
+     * @param other table to subtract
+     * @return subtracted table
+     */
+    CodePointTable subtract(CodePointTable other) {
+        if (this.ranges.length == 0 || other.ranges.length == 0) {
+            return this;
+        }
+        int[] a = this.ranges;
+        int[] b = other.ranges;
+        int[] r = new int[a.length + b.length];
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < a.length; i += 2) {
+            long first = a[i];
+            long last = a[i + 1];
+            // skip the ranges to subtract which end before this range
+            while (j < b.length && b[j + 1] < first) {
+                j += 2;
+            }
+            int k = j;
+            while (k < b.length && b[k] <= last && first <= last) {
+                if (b[k] > first) {
+                    r[n++] = (int) first;
+                    r[n++] = b[k] - 1;
+                }
+                first = (long) b[k + 1] + 1;
+                k += 2;
+            }
+            if (first <= last) {
+                r[n++] = (int) first;
+                r[n++] = (int) last;
+            }
+        }
+        return n == 0 ? EMPTY : new CodePointTable(Arrays.copyOf(r, n));
+    }
+
+    /**
+     * intersect two tables
+     * @param other table to intersect
+     * @return intersected table
+     */
+    CodePointTable intersect(CodePointTable other) {
+        int[] a = this.ranges;
+        int[] b = other.ranges;
+        int[] r = new int[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int first = Math.max(a[i], b[j]);
+            int last = Math.min(a[i + 1], b[j + 1]);
+            if (first <= last) {
+                r[n++] = first;
+                r[n++] = last;
+            }
+            // advance the range which ends first
+            if (a[i + 1] < b[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return n == 0 ? EMPTY : new CodePointTable(Arrays.copyOf(r, n));
+    }
+
+    /**
+     * equals method
+     * @param o object to check
+     * @return {@code true} if the given table contains the same code points
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CodePointTable)) {
+            return false;
+        }
+        CodePointTable that = (CodePointTable) o;
+        return hash == that.hash && Arrays.equals(ranges, that.ranges);
+    }
+
+    /**
+     * hash code which equals to the hash code of {@code Set<Integer>} containing the same code points
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * build the bitmap of the code points in the BMP from the given ranges.
+     * @param ranges normalized ranges
+     * @return bitmap trimmed to the highest used word
+     */
+    private static long[] bitmap(int[] ranges) {
+        int highest = -1;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i + 1] >= 0 && ranges[i] < BMP_LIMIT) {
+                highest = Math.min(ranges[i + 1], BMP_LIMIT - 1);
+            }
+        }
+        long[] words = new long[highest < 0 ? 0 : (highest >>> 6) + 1];
+        for (int i = 0; i < ranges.length; i += 2) {
+            int first = Math.max(ranges[i], 0);
+            int last = Math.min(ranges[i + 1], BMP_LIMIT - 1);
+            if (first > last) {
+                continue;
+            }
+            int firstWord = first >>> 6;
+            int lastWord = last >>> 6;
+            long firstMask = -1L << first;
+            long lastMask = -1L >>> (63 - (last & 63));
+            if (firstWord == lastWord) {
+                words[firstWord] |= firstMask & lastMask;
+            } else {
+                words[firstWord] |= firstMask;
+                for (int w = firstWord + 1; w < lastWord; w++) {
+                    words[w] = -1L;
+                }
+                words[lastWord] |= lastMask;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * returns the upper bound of the number of ranges in the given bitmap.
+     * @param words bitmap
+     * @return upper bound of the number of ranges
+     */
+    private static int bitmapRangeCount(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            // the number of the first bits of runs in the word
+            count += Long.bitCount(word & ~(word << 1));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.io.Serializable;
+
+/**
+ * Code point which is not included in the target code points, found by {@link CodePointsScanner}.
+ * @since 5.7.0
+ */
+public final class CodePointViolation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * code point which is not included.
+     */
+    private final int codePoint;
+
+    /**
+     * line number (1-origin).
+     */
+    private final long line;
+
+    /**
+     * column number in code points (1-origin).
+     */
+    private final long column;
+
+    /**
+     * char offset from the beginning of the input (0-origin).
+     */
+    private final long offset;
+
+    /**
+     * Constructor.
+     * @param codePoint code point which is not included
+     * @param line line number (1-origin)
+     * @param column column number in code points (1-origin)
+     * @param offset char offset from the beginning of the input (0-origin)
+     */
+    public CodePointViolation(int codePoint, long line, long column,
+            long offset) {
+        this.codePoint = codePoint;
+        this.line = line;
+        this.column = column;
+        this.offset = offset;
+    }
+
+    /**
+     * returns the code point which is not included.
+     * @return code point
+     */
+    public int getCodePoint() {
+        return codePoint;
+    }
+
+    /**
+     * returns the line number (1-origin). {@code "\r\n"}, {@code "\r"} and {@code "\n"} are treated as line terminators.
+     * @return line number
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * returns the column number counted in code points from the beginning of the line (1-origin).
+     * @return column number
+     */
+    public long getColumn() {
+        return column;
+    }
+
+    /**
+     * returns the char offset from the beginning of the input (0-origin).
+     * @return char offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * equals method
+     * @param o object to check
+     * @return {@code true} if the given object equals to this instance. {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CodePointViolation)) {
+            return false;
+        }
+        CodePointViolation that = (CodePointViolation) o;
+        return codePoint == that.codePoint && line == that.line
+                && column == that.column && offset == that.offset;
+    }
+
+    /**
+     * hash code of the instance
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        int result = codePoint;
+        result = 31 * result + Long.hashCode(line);
+        result = 31 * result + Long.hashCode(column);
+        result = 31 * result + Long.hashCode(offset);
+        return result;
+    }
+
+    /**
+     * string representation of the instance
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return "CodePointViolation [codePoint=" + String.format("U+%04X",
+                codePoint) + ", line=" + line + ", column=" + column
+                + ", offset=" + offset + "]";
+    }
+}
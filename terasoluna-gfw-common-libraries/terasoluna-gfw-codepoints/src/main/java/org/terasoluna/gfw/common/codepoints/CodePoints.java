@@ -15,20 +15,29 @@
  */
 package org.terasoluna.gfw.common.codepoints;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.ObjectStreamField;
+import java.io.Reader;
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Represents the collection of code point. This class holds immutable code points as {@link java.util.Set} and provides
+ * Represents the collection of code point. This class holds immutable code points as a sorted list of primitive ranges and
+ * provides
  * <ul>
  * <li>check method if the code points in the given string are included</li>
  * <li>set operations (union, subtract, intersect)</li>
@@ -116,6 +125,12 @@ import java.util.concurrent.ConcurrentMap;
  * cp.allExcludedCodePoints("ab"); // []
  * </code>
  * </pre>
+ * <p>
+ * {@link #containsAll(String)}, {@link #firstExcludedCodePoint(String)} and {@link #firstExcludedIndex(CharSequence)} scan a
+ * string whose length is 1M chars or more in parallel on the common {@link java.util.concurrent.ForkJoinPool}. The result is
+ * same as the sequential scan. The threshold can be changed by the system property
+ * {@code org.terasoluna.gfw.common.codepoints.parallelThreshold}, and {@code 0} disables parallel scan.
+ * </p>
  *
  * <h3>How to compose code points</h3>
  * <p>
@@ -198,28 +213,29 @@ public class CodePoints implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * shows no code point is found in the given string which is not included in the target code points.
+     * serializable fields. the code points are serialized as ranges named {@code ranges}. {@code set} is the
+     * {@code Set<Integer>} serialized by former versions and is only read.
      */
-    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("set", Set.class),
+            new ObjectStreamField("ranges", int[].class) };
 
     /**
-     * {@code CodePoints} cache
+     * shows no code point is found in the given string which is not included in the target code points.
      */
-    private static final ConcurrentMap<Class<? extends CodePoints>, CodePoints> cache = new ConcurrentHashMap<Class<? extends CodePoints>, CodePoints>();
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
 
     /**
-     * set for code points.
+     * primitive table for code points. not final to be restored in {@link #readObject(ObjectInputStream)}.
      */
-    private final Set<Integer> set;
+    private transient CodePointTable table;
 
     /**
      * Constructor with the given {@code java.lang.Integer} code points
      * @param codePoints array of actual code points
      */
     public CodePoints(Integer... codePoints) {
-        Set<Integer> s = new HashSet<Integer>(codePoints.length);
-        Collections.addAll(s, codePoints);
-        this.set = Collections.unmodifiableSet(s);
+        this.table = CodePointTable.of(Arrays.asList(codePoints));
     }
 
     /**
@@ -227,16 +243,7 @@ public class CodePoints implements Serializable {
      * @param strings array of strings which include target code points
      */
     public CodePoints(String... strings) {
-        Set<Integer> s = new HashSet<Integer>();
-        for (String str : strings) {
-            int len = str.length();
-            int codePoint;
-            for (int i = 0; i < len; i += Character.charCount(codePoint)) {
-                codePoint = str.codePointAt(i);
-                s.add(codePoint);
-            }
-        }
-        this.set = Collections.unmodifiableSet(s);
+        this.table = CodePointTable.of(strings);
     }
 
     /**
@@ -244,16 +251,23 @@ public class CodePoints implements Serializable {
      * @param codePoints collection of actual code points
      */
     public CodePoints(Collection<Integer> codePoints) {
-        Set<Integer> s = new HashSet<Integer>(codePoints);
-        this.set = Collections.unmodifiableSet(s);
+        this.table = CodePointTable.of(codePoints);
     }
 
     /**
-     * Constructor with the given {@code CodePoints}. The {@code java.util.Set} object inside {@code CodePoints} is shared.
+     * Constructor with the given {@code CodePoints}. The table object inside {@code CodePoints} is shared.
      * @param codePoints actual code points
      */
     public CodePoints(CodePoints codePoints) {
-        this.set = codePoints.set;
+        this.table = codePoints.table;
+    }
+
+    /**
+     * Constructor with the given table.
+     * @param table actual code points
+     */
+    private CodePoints(CodePointTable table) {
+        this.table = table;
     }
 
     /**
@@ -276,16 +290,9 @@ public class CodePoints implements Serializable {
         if (s == null || s.isEmpty()) {
             return NOT_FOUND;
         }
-        // http://www.ibm.com/developerworks/jp/ysl/library/java/j-unicode_surrogate/
-        int len = s.length();
-        int codePoint;
-        for (int i = 0; i < len; i += Character.charCount(codePoint)) {
-            codePoint = s.codePointAt(i);
-            if (!set.contains(codePoint)) {
-                return codePoint;
-            }
-        }
-        return NOT_FOUND;
+        int index = ParallelScan.indexOfExcluded(table, s,
+                ParallelScan.THRESHOLD);
+        return index < 0 ? NOT_FOUND : s.codePointAt(index);
     }
 
     /**
@@ -301,25 +308,234 @@ public class CodePoints implements Serializable {
         Set<Integer> excludedCodePoints = new LinkedHashSet<Integer>();
         // http://www.ibm.com/developerworks/jp/ysl/library/java/j-unicode_surrogate/
         int len = s.length();
-        Integer codePoint;
+        int codePoint;
         for (int i = 0; i < len; i += Character.charCount(codePoint)) {
             codePoint = s.codePointAt(i);
-            if (!set.contains(codePoint)) {
+            if (!table.contains(codePoint)) {
                 excludedCodePoints.add(codePoint);
             }
         }
         return excludedCodePoints;
     }
 
+    /**
+     * returns the char index of the first code point in the given string which is not included in the target code points.
+     * <p>
+     * A string whose length is greater than or equal to the threshold given by the system property
+     * {@code org.terasoluna.gfw.common.codepoints.parallelThreshold} (1M chars by default) is scanned in parallel. The property
+     * is read only once when the class is loaded, and changes after that have no effect. Set it before the class is loaded,
+     * for example by a {@code -D} option of the JVM.
+     * </p>
+     * @param s target string
+     * @return char index of the first code point which is not included. {@code -1} if all code points in the given string are
+     *         included or the string is {@code null}.
+     * @since 5.7.0
+     */
+    public int firstExcludedIndex(CharSequence s) {
+        return firstExcludedIndex(s, ParallelScan.THRESHOLD);
+    }
+
+    /**
+     * returns the char index of the first code point in the given string which is not included in the target code points,
+     * scanning in parallel if the length is greater than or equal to the given threshold.
+     * @param s target string
+     * @param parallelThreshold length threshold to scan in parallel. {@code 0} or negative value to scan sequentially.
+     * @return char index of the first code point which is not included. {@code -1} if all code points in the given string are
+     *         included or the string is {@code null}.
+     */
+    int firstExcludedIndex(CharSequence s, int parallelThreshold) {
+        if (s == null) {
+            return -1;
+        }
+        return ParallelScan.indexOfExcluded(table, s, parallelThreshold);
+    }
+
+    /**
+     * reports each code point in the given string which is not included in the target code points with its char index, in order
+     * of appearance. Unlike {@link #allExcludedCodePoints(String)}, code points are neither boxed nor deduplicated.
+     *
+     * <pre>
+     * <code>CodePoints cp = new CodePoints(0x0061, 0x0062); // a b
+     * cp.forEachExcludedCodePoint("acbd", (codePoint, index) -&gt; {
+     *     // (0x0063, 1), (0x0064, 3)
+     *     return true;
+     * });</code>
+     * </pre>
+     * @param s target string
+     * @param handler handler called for each excluded code point. reporting stops when the handler returns {@code false}.
+     * @return the number of code points reported to the handler
+     * @since 5.7.0
+     */
+    public int forEachExcludedCodePoint(CharSequence s,
+            ExcludedCodePointHandler handler) {
+        if (s == null) {
+            return 0;
+        }
+        int count = 0;
+        int len = s.length();
+        int codePoint;
+        for (int i = 0; i < len; i += Character.charCount(codePoint)) {
+            codePoint = Character.codePointAt(s, i);
+            if (!table.contains(codePoint)) {
+                count++;
+                if (!handler.handle(codePoint, i)) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * returns the first code point in the given reader which is not included in the target code points. The reader is read
+     * incrementally with constant memory and is not closed. Line terminators are not checked.
+     * @param reader target chars
+     * @return violation including the position of the code point. {@code null} if all code points are included.
+     * @throws IOException if an I/O error occurs
+     * @see CodePointsScanner
+     * @since 5.7.0
+     */
+    public CodePointViolation firstViolation(Reader reader) throws IOException {
+        return first(violations(reader, 1));
+    }
+
+    /**
+     * returns code points in the given reader which are not included in the target code points, up to the given number. The
+     * reader is read incrementally with constant memory and is not closed. Line terminators are not checked.
+     * @param reader target chars
+     * @param maxViolations maximum number of violations to collect
+     * @return violations in order of appearance. an empty list if all code points are included.
+     * @throws IOException if an I/O error occurs
+     * @see CodePointsScanner
+     * @since 5.7.0
+     */
+    public List<CodePointViolation> violations(Reader reader,
+            int maxViolations) throws IOException {
+        CodePointsScanner scanner = scanner(maxViolations);
+        scanner.scan(reader);
+        return scanner.finish();
+    }
+
+    /**
+     * returns the first code point in the remaining chars of the given buffer which is not included in the target code points.
+     * The position of the buffer is not changed. Line terminators are not checked.
+     * @param buffer target chars
+     * @return violation including the position of the code point. the offset is relative to the position of the buffer.
+     *         {@code null} if all code points are included.
+     * @see CodePointsScanner
+     * @since 5.7.0
+     */
+    public CodePointViolation firstViolation(CharBuffer buffer) {
+        return first(violations(buffer, 1));
+    }
+
+    /**
+     * returns code points in the remaining chars of the given buffer which are not included in the target code points, up to
+     * the given number. The position of the buffer is not changed. Line terminators are not checked.
+     * @param buffer target chars
+     * @param maxViolations maximum number of violations to collect
+     * @return violations in order of appearance. the offset is relative to the position of the buffer. an empty list if all
+     *         code points are included.
+     * @see CodePointsScanner
+     * @since 5.7.0
+     */
+    public List<CodePointViolation> violations(CharBuffer buffer,
+            int maxViolations) {
+        CodePointsScanner scanner = scanner(maxViolations);
+        scanner.scan(buffer.duplicate());
+        return scanner.finish();
+    }
+
+    /**
+     * returns the first code point in the given stream decoded by the given charset which is not included in the target code
+     * points. The stream is read incrementally with constant memory and is not closed. Line terminators are not checked.
+     * @param in target bytes
+     * @param charset charset to decode the bytes
+     * @return violation including the position of the code point. {@code null} if all code points are included.
+     * @throws IOException if an I/O error occurs or the bytes are malformed for the charset
+     * @see CodePointsScanner
+     * @since 5.7.0
+     */
+    public CodePointViolation firstViolation(InputStream in,
+            Charset charset) throws IOException {
+        return first(violations(in, charset, 1));
+    }
+
+    /**
+     * returns code points in the given stream decoded by the given charset which are not included in the target code points, up
+     * to the given number. The stream is read incrementally with constant memory and is not closed. Line terminators are not
+     * checked.
+     * @param in target bytes
+     * @param charset charset to decode the bytes
+     * @param maxViolations maximum number of violations to collect
+     * @return violations in order of appearance. an empty list if all code points are included.
+     * @throws IOException if an I/O error occurs or the bytes are malformed for the charset
+     * @see CodePointsScanner
+     * @since 5.7.0
+     */
+    public List<CodePointViolation> violations(InputStream in,
+            Charset charset, int maxViolations) throws IOException {
+        // the decoder reports malformed input instead of replacing it
+        return violations(new InputStreamReader(in, charset.newDecoder()),
+                maxViolations);
+    }
+
+    /**
+     * Create a scanner to check chars given incrementally.
+     * @param maxViolations maximum number of violations to collect
+     * @return new scanner
+     * @throws IllegalArgumentException if {@code maxViolations} is less than 1
+     * @since 5.7.0
+     */
+    public CodePointsScanner scanner(int maxViolations) {
+        return new CodePointsScanner(table, maxViolations);
+    }
+
+    /**
+     * Create code points to check byte sequences encoded in the given charset without decoding them.
+     * @param charset charset of the byte sequences
+     * @return code points for the charset
+     * @throws IllegalArgumentException if the charset is not supported
+     * @see EncodedCodePoints
+     * @since 5.7.0
+     */
+    public EncodedCodePoints encoded(Charset charset) {
+        return new EncodedCodePoints(table, charset);
+    }
+
+    /**
+     * Create a sanitizer which replaces code points not included in the target code points with the given replacement.
+     * @param replacement replacement of the code points which are not included. an empty string to remove them.
+     * @return sanitizer
+     * @throws IllegalArgumentException if {@code replacement} is {@code null}
+     * @see CodePointsSanitizer
+     * @since 5.7.0
+     */
+    public CodePointsSanitizer sanitizer(String replacement) {
+        return new CodePointsSanitizer(table, replacement);
+    }
+
+    /**
+     * Create a normalizer which converts a string with the given conversion and checks the converted string with the target
+     * code points in one pass.
+     * @param conversion conversion applied before the check, such as {@code DefaultFullHalf.INSTANCE::toFullwidth}
+     * @return normalizer
+     * @throws IllegalArgumentException if {@code conversion} is {@code null}
+     * @see CodePointsNormalizer
+     * @since 5.7.0
+     */
+    public CodePointsNormalizer normalizer(
+            CodePointsNormalizer.Conversion conversion) {
+        return new CodePointsNormalizer(table, conversion);
+    }
+
     /**
      * unite two set of code points
      * @param codePoints code points to unite
      * @return united code points
      */
     public CodePoints union(CodePoints codePoints) {
-        Set<Integer> setTmp = new HashSet<Integer>(this.set);
-        setTmp.addAll(codePoints.set);
-        return new CodePoints(setTmp);
+        return new CodePoints(this.table.union(codePoints.table));
     }
 
     /**
@@ -328,9 +544,7 @@ public class CodePoints implements Serializable {
      * @return subtracted code points
      */
     public CodePoints subtract(CodePoints codePoints) {
-        Set<Integer> setTmp = new HashSet<Integer>(this.set);
-        setTmp.removeAll(codePoints.set);
-        return new CodePoints(setTmp);
+        return new CodePoints(this.table.subtract(codePoints.table));
     }
 
     /**
@@ -339,66 +553,92 @@ public class CodePoints implements Serializable {
      * @return intersected code points
      */
     public CodePoints intersect(CodePoints codePoints) {
-        Set<Integer> setTmp = new HashSet<Integer>(this.set);
-        setTmp.retainAll(codePoints.set);
-        return new CodePoints(setTmp);
+        return new CodePoints(this.table.intersect(codePoints.table));
     }
 
     /**
      * Produces cached {@link CodePoints}. At first time, a new {@link CodePoints} is created. After second time, same instance
-     * is returned.
+     * is returned. Since 5.7.0, the class is instantiated exactly once even if many threads request it at the same time.
      * @param clazz {@link CodePoints} class to create
      * @param <T> {@link CodePoints} class
      * @return cached instance
      */
     @SuppressWarnings("unchecked")
     public static <T extends CodePoints> T of(Class<T> clazz) {
-        if (cache.containsKey(clazz)) {
-            return (T) cache.get(clazz);
-        }
-        try {
-            T codePoints = clazz.getDeclaredConstructor().newInstance();
-            cache.put(clazz, codePoints);
-            return codePoints;
-        } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException e) {
-            throw new IllegalArgumentException("public default constructor not found", e);
-        } catch (InstantiationException | InvocationTargetException e) {
-            throw new IllegalArgumentException("exception occurred while initializing", e);
-        }
+        return (T) CodePointsRegistry.get(clazz);
+    }
+
+    /**
+     * Creates the cached instances of the given classes on a background daemon thread, so that the first requests do not pay
+     * for loading large catalogs. Call this at application startup, for example from an initialization method of a bean.
+     * Requests by {@link #of(Class)} during the warmup wait only for the class being created.
+     * @param classes {@link CodePoints} classes to create
+     * @return future completed when all classes are created. it is completed exceptionally with the first failure after trying
+     *         all classes.
+     * @since 5.7.0
+     */
+    public static CompletableFuture<Void> warmUp(
+            Iterable<Class<? extends CodePoints>> classes) {
+        return CodePointsRegistry.warmUp(classes);
+    }
+
+    /**
+     * Creates the cached instances of the catalog classes found on the class path on a background daemon thread. Catalog
+     * classes are listed in the {@code META-INF/terasoluna-gfw-codepoints.catalogs} resources, which each catalog artifact
+     * provides, one fully qualified class name per line.
+     * @param classLoader class loader to find the catalogs
+     * @return future completed when all catalogs are created
+     * @throws IllegalArgumentException if a listed class is not found or not a {@link CodePoints} class
+     * @see #warmUp(Iterable)
+     * @since 5.7.0
+     */
+    public static CompletableFuture<Void> warmUpCatalogs(
+            ClassLoader classLoader) {
+        return CodePointsRegistry.warmUp(CodePointsRegistry.discoverCatalogs(
+                classLoader));
+    }
+
+    /**
+     * Load code points from the binary resource named {@code <simple class name>.codepoints} in the package of the given class.
+     * The resource is generated at build time from the text file under {@code src/main/codepoints} of the catalog module. This
+     * method is intended to be used in the constructor of large code points like following:
+     *
+     * <pre>
+     * <code>public final class JIS_X_0213_Kanji extends CodePoints {
+     *   public JIS_X_0213_Kanji() {
+     *     super(loadResource(JIS_X_0213_Kanji.class));
+     *   }
+     * }</code>
+     * </pre>
+     * @param clazz {@link CodePoints} class which the resource belongs to
+     * @return code points loaded from the resource
+     * @throws IllegalStateException if the resource is not found or broken
+     * @since 5.7.0
+     */
+    protected static CodePoints loadResource(
+            Class<? extends CodePoints> clazz) {
+        return new CodePoints(CodePointsResource.load(clazz));
     }
 
     /**
      * Helper method to check whether all code points in the given string are included in any of the code points list.
      * @param s target string
      * @param codePointsList array of code points
-     * @return {@code true} if all code points in the given string are included in any of the code points list. Otherwise
-     *         {@code false} is returned.
+     * @return {@code true} if all code points in the given string are included in any of the code points list or the list is
+     *         empty. Otherwise {@code false} is returned.
      */
     public static boolean containsAllInAnyCodePoints(String s,
             final CodePoints... codePointsList) {
-        Map<Integer, Integer> excludedCounts = new HashMap<Integer, Integer>();
-        for (CodePoints codePoints : codePointsList) {
-            Set<Integer> excluded = codePoints.allExcludedCodePoints(s);
-            if (excluded.isEmpty()) {
-                // return immediately if the given string consists of a code points.
-                return true;
-            }
-
-            for (Integer codePoint : excluded) {
-                // count the number of CodePoints in the given list which forbade the given code point
-                Integer count = excludedCounts.get(codePoint);
-                if (count != null) {
-                    excludedCounts.put(codePoint, count + 1);
-                } else {
-                    excludedCounts.put(codePoint, 1);
-                }
-            }
+        if (s == null || s.isEmpty() || codePointsList.length == 0) {
+            // no code points list forbids any code point
+            return true;
         }
-
-        for (Map.Entry<Integer, Integer> entry : excludedCounts.entrySet()) {
-            if (entry.getValue() == codePointsList.length) {
-                // All CodePoints forbade the given code point.
-                // This means there are some code points which are not included in any given CodePoints' list
+        int len = s.length();
+        int codePoint;
+        for (int i = 0; i < len; i += Character.charCount(codePoint)) {
+            codePoint = s.codePointAt(i);
+            if (!containsInAny(codePoint, codePointsList)) {
+                // there is a code point which is not included in any given CodePoints' list
                 return false;
             }
         }
@@ -406,6 +646,32 @@ public class CodePoints implements Serializable {
         return true;
     }
 
+    /**
+     * returns whether the given code point is included in any of the code points list.
+     * @param codePoint code point to check
+     * @param codePointsList array of code points
+     * @return {@code true} if the given code point is included in any of the code points list
+     */
+    private static boolean containsInAny(int codePoint,
+            CodePoints[] codePointsList) {
+        for (CodePoints codePoints : codePointsList) {
+            if (codePoints.table.contains(codePoint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * returns the first element of the given violations.
+     * @param violations violations
+     * @return first violation. {@code null} if empty.
+     */
+    private static CodePointViolation first(
+            List<CodePointViolation> violations) {
+        return violations.isEmpty() ? null : violations.get(0);
+    }
+
     /**
      * equals method
      * @param o object to check
@@ -422,7 +688,7 @@ public class CodePoints implements Serializable {
 
         CodePoints that = (CodePoints) o;
 
-        return set.equals(that.set);
+        return table.equals(that.table);
 
     }
 
@@ -432,6 +698,123 @@ public class CodePoints implements Serializable {
      */
     @Override
     public int hashCode() {
-        return set.hashCode();
+        return table.hashCode();
+    }
+
+    /**
+     * replace the instance of {@link CodePoints} subclass which has the same code points as the cached instance by the
+     * reference to the class, so that it is resolved to the cached instance on deserialization. The class is not instantiated
+     * here; an instance of the class which has not been cached by {@link #of(Class)} is written as is.
+     * @return {@link CatalogReference} or this instance
+     * @since 5.7.0
+     */
+    protected Object writeReplace() {
+        Class<? extends CodePoints> clazz = getClass();
+        if (clazz == CodePoints.class) {
+            return this;
+        }
+        CodePoints cached = CodePointsRegistry.find(clazz);
+        if (cached == this || (cached != null && table.equals(cached.table))) {
+            return new CatalogReference(clazz);
+        }
+        return this;
+    }
+
+    /**
+     * write the code points as ranges.
+     * @param out stream to write
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("ranges", table.toRanges());
+        out.writeFields();
+    }
+
+    /**
+     * restore the table from the serialized ranges or {@code Set<Integer>}.
+     * @param in stream to read
+     * @throws IOException if an I/O error occurs or the ranges are invalid
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(
+            ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        int[] ranges = (int[]) fields.get("ranges", null);
+        Set<Integer> set = (Set<Integer>) fields.get("set", null);
+        if (ranges != null) {
+            if ((ranges.length & 1) != 0) {
+                throw new InvalidObjectException("invalid ranges (length = "
+                        + ranges.length + ")");
+            }
+            try {
+                this.table = CodePointTable.ofRanges(ranges, ranges.length / 2);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidObjectException(e.getMessage());
+            }
+        } else if (set != null) {
+            this.table = CodePointTable.of(set);
+        } else {
+            this.table = CodePointTable.EMPTY;
+        }
+    }
+
+    /**
+     * Serialized form of the cached {@link CodePoints} subclass. Only the class is serialized and it is resolved to the cached
+     * instance by {@link CodePoints#of(Class)}.
+     * @since 5.7.0
+     */
+    private static final class CatalogReference implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * {@link CodePoints} class
+         */
+        private final Class<? extends CodePoints> clazz;
+
+        /**
+         * Constructor.
+         * @param clazz {@link CodePoints} class
+         */
+        CatalogReference(Class<? extends CodePoints> clazz) {
+            this.clazz = clazz;
+        }
+
+        /**
+         * resolve to the cached instance.
+         * @return cached instance
+         * @throws ObjectStreamException if the class is not a {@link CodePoints} class or cannot be created
+         */
+        private Object readResolve() throws ObjectStreamException {
+            if (clazz == null || !CodePoints.class.isAssignableFrom(clazz)) {
+                throw new InvalidObjectException("not a CodePoints class (class = "
+                        + clazz + ")");
+            }
+            try {
+                return of(clazz);
+            } catch (IllegalArgumentException e) {
+                InvalidObjectException ex = new InvalidObjectException(e
+                        .getMessage());
+                ex.initCause(e);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * The handler to receive code points which are not included in the target code points.
+     * @since 5.7.0
+     */
+    @FunctionalInterface
+    public interface ExcludedCodePointHandler {
+        /**
+         * Handle the code point which is not included in the target code points.
+         * @param codePoint code point which is not included
+         * @param index char index of the code point in the target string
+         * @return {@code true} to continue reporting. {@code false} to stop.
+         */
+        boolean handle(int codePoint, int index);
     }
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.io.IOException;
+
+/**
+ * Normalizer which converts a string and checks whether all code points of the converted string are included in the target
+ * {@link CodePoints} in one pass. The conversion is typically fullwidth-halfwidth conversion of {@code FullHalfConverter} of
+ * terasoluna-gfw-string.
+ *
+ * <pre>
+ * <code>CodePointsNormalizer normalizer = CodePoints.of(JIS_X_0208_Katakana.class)
+ *         .normalizer(DefaultFullHalf.INSTANCE::toFullwidth);
+ * normalizer.normalize("ｶﾀｶﾅ").getValue(); // "カタカナ"
+ * normalizer.normalize("ｶﾀｶﾅa").getExcludedIndex(); // 4</code>
+ * </pre>
+ * <p>
+ * Converted chars are checked as soon as the conversion appends them, so the input is read once and no copy is made for the
+ * check. If the conversion appends the input as it is, the result holds the given instance itself. It can be used in a
+ * Spring {@code Formatter} registered by {@code @InitBinder} to normalize and validate a request parameter at once:
+ * </p>
+ *
+ * <pre>
+ * <code>public String parse(String text, Locale locale) throws ParseException {
+ *     CodePointsNormalizer.Result result = normalizer.normalize(text);
+ *     if (!result.isValid()) {
+ *         throw new ParseException(text, result.getExcludedIndex());
+ *     }
+ *     return result.getValue();
+ * }</code>
+ * </pre>
+ * <p>
+ * This class is immutable and thread-safe as long as the conversion is. Use {@link CodePoints#normalizer(Conversion)} to
+ * create an instance.
+ * </p>
+ * @since 5.7.0
+ */
+public final class CodePointsNormalizer {
+
+    /**
+     * allowed code points.
+     */
+    private final CodePointTable table;
+
+    /**
+     * conversion applied before the check.
+     */
+    private final Conversion conversion;
+
+    /**
+     * Constructor.
+     * @param table allowed code points
+     * @param conversion conversion applied before the check
+     * @throws IllegalArgumentException if {@code conversion} is {@code null}
+     */
+    CodePointsNormalizer(CodePointTable table, Conversion conversion) {
+        if (conversion == null) {
+            throw new IllegalArgumentException("conversion must not be null");
+        }
+        this.table = table;
+        this.conversion = conversion;
+    }
+
+    /**
+     * Convert the given string and check the converted string.
+     * @param s string to normalize
+     * @return result. its value is {@code null} if the given string is {@code null}.
+     */
+    public Result normalize(String s) {
+        if (s == null) {
+            return new Result(null, -1);
+        }
+        CheckingAppendable out = new CheckingAppendable(s);
+        try {
+            conversion.convert(s, out);
+        } catch (IOException e) {
+            // CheckingAppendable never throws IOException
+            throw new IllegalStateException(e);
+        }
+        return out.result();
+    }
+
+    /**
+     * Conversion of chars applied before the check, such as {@code FullHalfConverter::toFullwidth}.
+     * @since 5.7.0
+     */
+    @FunctionalInterface
+    public interface Conversion {
+        /**
+         * Convert the given chars and append the result to the given {@link Appendable}.
+         * @param source chars to convert
+         * @param out destination
+         * @throws IOException if an I/O error occurs
+         */
+        void convert(CharSequence source, Appendable out) throws IOException;
+    }
+
+    /**
+     * Result of {@link CodePointsNormalizer#normalize(String)}.
+     * @since 5.7.0
+     */
+    public static final class Result {
+
+        /**
+         * converted string.
+         */
+        private final String value;
+
+        /**
+         * index of the first code point not included in the converted string. {@code -1} if all are included.
+         */
+        private final int excludedIndex;
+
+        /**
+         * Constructor.
+         * @param value converted string
+         * @param excludedIndex index of the first code point not included in the converted string
+         */
+        Result(String value, int excludedIndex) {
+            this.value = value;
+            this.excludedIndex = excludedIndex;
+        }
+
+        /**
+         * returns the converted string.
+         * @return converted string. the given instance itself if the conversion does not change it. {@code null} if the given
+         *         string is {@code null}.
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * returns whether all code points of the converted string are included.
+         * @return {@code true} if all code points are included
+         */
+        public boolean isValid() {
+            return excludedIndex < 0;
+        }
+
+        /**
+         * returns the index of the first code point not included, in the converted string.
+         * @return char index. {@code -1} if all code points are included.
+         */
+        public int getExcludedIndex() {
+            return excludedIndex;
+        }
+
+        /**
+         * returns the first code point not included.
+         * @return code point. {@link CodePoints#NOT_FOUND} if all code points are included.
+         */
+        public int getExcludedCodePoint() {
+            return excludedIndex < 0 ? CodePoints.NOT_FOUND
+                    : value.codePointAt(excludedIndex);
+        }
+    }
+
+    /**
+     * {@link Appendable} which checks appended chars and copies them only when they differ from the source.
+     */
+    private final class CheckingAppendable implements Appendable {
+
+        /**
+         * string given to the conversion.
+         */
+        private final String source;
+
+        /**
+         * converted chars. {@code null} while the appended chars are the same as the head of the source.
+         */
+        private StringBuilder builder;
+
+        /**
+         * the number of appended chars.
+         */
+        private int length;
+
+        /**
+         * high surrogate at the end of the appended chars, waiting for the next append. {@code 0} if none.
+         */
+        private char pendingHighSurrogate;
+
+        /**
+         * index of the first code point not included. {@code -1} if not found yet.
+         */
+        private int excludedIndex = -1;
+
+        /**
+         * Constructor.
+         * @param source string given to the conversion
+         */
+        CheckingAppendable(String source) {
+            this.source = source;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Appendable append(CharSequence csq) {
+            CharSequence s = csq == null ? "null" : csq;
+            return append(s, 0, s.length());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            CharSequence s = csq == null ? "null" : csq;
+            if (builder == null) {
+                if (s == source && start == length) {
+                    // still the same as the head of the source, copied only when a different char is appended
+                    check(s, start, end);
+                    return this;
+                }
+                builder = copySource();
+            }
+            builder.append(s, start, end);
+            check(s, start, end);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Appendable append(char c) {
+            if (builder == null) {
+                builder = copySource();
+            }
+            builder.append(c);
+            check(builder, builder.length() - 1, builder.length());
+            return this;
+        }
+
+        /**
+         * copy the chars appended so far, which are the head of the source.
+         * @return builder holding the copy
+         */
+        private StringBuilder copySource() {
+            return new StringBuilder(source.length() + 16).append(source, 0,
+                    length);
+        }
+
+        /**
+         * Check the appended chars.
+         * @param s appended chars
+         * @param start index of the first char
+         * @param end index after the last char
+         */
+        private void check(CharSequence s, int start, int end) {
+            int offset = length;
+            length += end - start;
+            if (excludedIndex >= 0 || start >= end) {
+                return;
+            }
+            int i = start;
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                char c = s.charAt(i);
+                int codePoint = high;
+                if (Character.isLowSurrogate(c)) {
+                    codePoint = Character.toCodePoint(high, c);
+                    i++;
+                }
+                if (!table.contains(codePoint)) {
+                    excludedIndex = offset - 1;
+                    return;
+                }
+            }
+            int e = end;
+            if (i < e && Character.isHighSurrogate(s.charAt(e - 1))) {
+                // keep the last high surrogate to combine with the next append
+                e--;
+            }
+            int index = table.indexOfExcluded(s, i, e);
+            if (index >= 0) {
+                excludedIndex = offset + index - start;
+            } else if (e < end) {
+                pendingHighSurrogate = s.charAt(e);
+            }
+        }
+
+        /**
+         * returns the result.
+         * @return result
+         */
+        Result result() {
+            if (excludedIndex < 0 && pendingHighSurrogate != 0
+                    && !table.contains(pendingHighSurrogate)) {
+                excludedIndex = length - 1;
+            }
+            String value = builder == null && length == source.length()
+                    ? source
+                    : builder == null ? source.substring(0, length)
+                            : builder.toString();
+            return new Result(value, excludedIndex);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the cached {@link CodePoints} instances behind {@link CodePoints#of(Class)}.
+ * <p>
+ * Each class is instantiated exactly once even if many threads request it at the same time. The threads requesting the same
+ * class wait for the one which instantiates it, while requests for the other classes are not blocked. The lock is per class
+ * and not the lock of the map, so that a constructor can call {@link CodePoints#of(Class)} for other classes. A failed
+ * instantiation is not cached and is retried by the next request.
+ * </p>
+ * @since 5.7.0
+ */
+final class CodePointsRegistry {
+
+    /**
+     * name of the resources listing the catalog classes. each line is a fully qualified class name. blank lines and lines
+     * starting with {@code #} are ignored.
+     */
+    static final String CATALOG_RESOURCE = "META-INF/terasoluna-gfw-codepoints.catalogs";
+
+    /**
+     * name of the warmup thread.
+     */
+    private static final String WARM_UP_THREAD_NAME = "terasoluna-gfw-codepoints-warmup";
+
+    /**
+     * entries keyed by the {@link CodePoints} class.
+     */
+    private static final ConcurrentMap<Class<? extends CodePoints>, Entry> entries = new ConcurrentHashMap<Class<? extends CodePoints>, Entry>();
+
+    /**
+     * Constructor. not to instantiate.
+     */
+    private CodePointsRegistry() {
+    }
+
+    /**
+     * returns the cached instance of the given class. The instance is created at the first time.
+     * @param clazz {@link CodePoints} class
+     * @return cached instance
+     * @throws IllegalArgumentException if the class cannot be instantiated
+     */
+    static CodePoints get(Class<? extends CodePoints> clazz) {
+        Entry entry = entries.get(clazz);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(clazz, Entry::new);
+        }
+        CodePoints instance = entry.instance;
+        return instance != null ? instance : entry.create();
+    }
+
+    /**
+     * returns the cached instance of the given class without creating it.
+     * @param clazz {@link CodePoints} class
+     * @return cached instance. {@code null} if the class has not been instantiated.
+     */
+    static CodePoints find(Class<? extends CodePoints> clazz) {
+        Entry entry = entries.get(clazz);
+        return entry != null ? entry.instance : null;
+    }
+
+    /**
+     * instantiate the given classes on a background daemon thread.
+     * @param classes {@link CodePoints} classes
+     * @return future completed when all classes are instantiated. it is completed exceptionally with the first failure after
+     *         trying all classes.
+     */
+    static CompletableFuture<Void> warmUp(
+            Iterable<Class<? extends CodePoints>> classes) {
+        CompletableFuture<Void> future = new CompletableFuture<Void>();
+        Thread thread = new Thread(() -> {
+            RuntimeException failure = null;
+            for (Class<? extends CodePoints> clazz : classes) {
+                try {
+                    get(clazz);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        }, WARM_UP_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * returns the catalog classes listed in the {@value #CATALOG_RESOURCE} resources visible from the given class loader.
+     * @param classLoader class loader to find the resources and to load the classes
+     * @return catalog classes in order of the resources
+     * @throws UncheckedIOException if a resource cannot be read
+     * @throws IllegalArgumentException if a listed class is not found or not a {@link CodePoints} class
+     */
+    static List<Class<? extends CodePoints>> discoverCatalogs(
+            ClassLoader classLoader) {
+        Set<Class<? extends CodePoints>> classes = new LinkedHashSet<Class<? extends CodePoints>>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(
+                    CATALOG_RESOURCE);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                try (InputStream in = resource.openStream();
+                        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty() && !line.startsWith("#")) {
+                            classes.add(loadCatalog(line, classLoader));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ArrayList<Class<? extends CodePoints>>(classes);
+    }
+
+    /**
+     * load the listed catalog class.
+     * @param className fully qualified class name
+     * @param classLoader class loader to load the class
+     * @return catalog class
+     * @throws IllegalArgumentException if the class is not found or not a {@link CodePoints} class
+     */
+    private static Class<? extends CodePoints> loadCatalog(String className,
+            ClassLoader classLoader) {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("catalog class not found (class = "
+                    + className + ")", e);
+        }
+        if (!CodePoints.class.isAssignableFrom(clazz)) {
+            throw new IllegalArgumentException("not a CodePoints class (class = "
+                    + className + ")");
+        }
+        return clazz.asSubclass(CodePoints.class);
+    }
+
+    /**
+     * cache entry of a class.
+     */
+    private static final class Entry {
+
+        /**
+         * class to instantiate.
+         */
+        private final Class<? extends CodePoints> clazz;
+
+        /**
+         * cached instance. {@code null} until instantiated.
+         */
+        private volatile CodePoints instance;
+
+        /**
+         * thread instantiating the class. guarded by {@code this}.
+         */
+        private Thread creator;
+
+        /**
+         * Constructor.
+         * @param clazz class to instantiate
+         */
+        Entry(Class<? extends CodePoints> clazz) {
+            this.clazz = clazz;
+        }
+
+        /**
+         * instantiate the class unless another thread has done.
+         * @return cached instance
+         * @throws IllegalArgumentException if the class cannot be instantiated
+         * @throws IllegalStateException if the constructor requests its own class
+         */
+        synchronized CodePoints create() {
+            CodePoints created = instance;
+            if (created != null) {
+                return created;
+            }
+            if (creator == Thread.currentThread()) {
+                throw new IllegalStateException("circular initialization (class = "
+                        + clazz.getName() + ")");
+            }
+            creator = Thread.currentThread();
+            try {
+                created = clazz.getDeclaredConstructor().newInstance();
+            } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("public default constructor not found", e);
+            } catch (InstantiationException | InvocationTargetException e) {
+                throw new IllegalArgumentException("exception occurred while initializing", e);
+            } finally {
+                creator = null;
+            }
+            instance = created;
+            return created;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary resource format of code points generated at build time by {@link CodePointsResourceGenerator}.
+ * <p>
+ * The resource consists of the following big-endian values:
+ * </p>
+ * <ol>
+ * <li>magic number ({@link #MAGIC}) as {@code int}</li>
+ * <li>the number of words of the BMP bitmap as {@code int}</li>
+ * <li>the words of the BMP bitmap as {@code long}. the bit {@code (cp & 63)} of the word {@code (cp >>> 6)} is set if
+ * {@code cp} is included</li>
+ * <li>the number of ranges of the supplementary code points as {@code int}</li>
+ * <li>pairs of the first and the last supplementary code point (inclusive) of each range in ascending order as
+ * {@code int}</li>
+ * </ol>
+ * <p>
+ * The resource is read through its stream into a heap buffer and decoded into the arrays of {@link CodePointTable}, so that no
+ * file is kept open or mapped after loading.
+ * </p>
+ * @since 5.7.0
+ */
+final class CodePointsResource {
+
+    /**
+     * magic number of the resource ({@code "TCP1"}).
+     */
+    static final int MAGIC = 0x54435031;
+
+    /**
+     * extension of the resource name.
+     */
+    static final String EXTENSION = ".codepoints";
+
+    /**
+     * Default constructor.
+     */
+    private CodePointsResource() {
+        // do nothing
+    }
+
+    /**
+     * Load the table from the resource named {@code <simple class name>.codepoints} in the package of the given class.
+     * @param clazz class which the resource belongs to
+     * @return table
+     * @throws IllegalStateException if the resource is not found or broken
+     */
+    static CodePointTable load(Class<?> clazz) {
+        String name = clazz.getSimpleName() + EXTENSION;
+        URL url = clazz.getResource(name);
+        if (url == null) {
+            throw new IllegalStateException("code points resource not found (resource = "
+                    + name + ")");
+        }
+        return load(url);
+    }
+
+    /**
+     * Load the table from the given resource.
+     * @param url resource to load
+     * @return table
+     * @throws IllegalStateException if the resource cannot be read or is broken
+     */
+    static CodePointTable load(URL url) {
+        try {
+            return read(open(url));
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to read code points resource (resource = "
+                    + url + ")", e);
+        }
+    }
+
+    /**
+     * Decode the table from the given buffer.
+     * @param buffer buffer to decode
+     * @return table
+     * @throws IOException if the buffer is not a code points resource
+     */
+    static CodePointTable read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("not a code points resource");
+            }
+            int wordCount = buffer.getInt();
+            if (wordCount < 0 || wordCount > buffer.remaining() / 8) {
+                throw new IOException("invalid number of bitmap words (wordCount = "
+                        + wordCount + ")");
+            }
+            long[] words = new long[wordCount];
+            buffer.asLongBuffer().get(words);
+            buffer.position(buffer.position() + wordCount * 8);
+            int rangeCount = buffer.getInt();
+            if (rangeCount < 0 || rangeCount > buffer.remaining() / 8) {
+                throw new IOException("invalid number of ranges (rangeCount = "
+                        + rangeCount + ")");
+            }
+            int[] ranges = new int[rangeCount * 2];
+            buffer.asIntBuffer().get(ranges);
+            return CodePointTable.of(words, ranges, rangeCount);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("invalid code points resource", e);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("code points resource is truncated", e);
+        }
+    }
+
+    /**
+     * Encode the given table.
+     * @param table table to encode
+     * @param out stream to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(CodePointTable table,
+            OutputStream out) throws IOException {
+        long[] words = table.bmpWords();
+        int[] ranges = table.supplementaryRanges();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(words.length);
+        for (long word : words) {
+            data.writeLong(word);
+        }
+        data.writeInt(ranges.length / 2);
+        for (int value : ranges) {
+            data.writeInt(value);
+        }
+        data.flush();
+    }
+
+    /**
+     * Read the given resource into a buffer.
+     * @param url resource to read
+     * @return heap buffer
+     * @throws IOException if an I/O error occurs
+     */
+    private static ByteBuffer open(URL url) throws IOException {
+        try (InputStream in = url.openStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                bytes.write(buf, 0, n);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build-time generator of binary code points resources loaded by {@link CodePoints#loadResource(Class)}.
+ * <p>
+ * Each {@code *.txt} file in the source directory is converted to a {@code *.codepoints} resource at the same relative path
+ * in the output directory. A source file has one code point ({@code 0x4E9C}) or one range ({@code 0x3041-0x3096}) per line.
+ * Characters after {@code #} are ignored as comment.
+ * </p>
+ * <p>
+ * This class is an internal build tool invoked through {@link #main(String[])} by the {@code maven-antrun-plugin} of the
+ * catalog modules, and is not a part of the public API.
+ * </p>
+ *
+ * <pre>
+ * <code>java org.terasoluna.gfw.common.codepoints.CodePointsResourceGenerator src/main/codepoints target/classes</code>
+ * </pre>
+ * @since 5.7.0
+ */
+final class CodePointsResourceGenerator {
+
+    /**
+     * extension of the source file.
+     */
+    private static final String SOURCE_EXTENSION = ".txt";
+
+    /**
+     * Default constructor.
+     */
+    private CodePointsResourceGenerator() {
+        // do nothing
+    }
+
+    /**
+     * Generate the resources.
+     * @param args source directory and output directory
+     * @throws IOException if an I/O error occurs, a source file is invalid or the source directory does not exist
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("usage: CodePointsResourceGenerator <source directory> <output directory>");
+        }
+        generate(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    /**
+     * Generate the resources.
+     * @param sourceDirectory directory including source files
+     * @param outputDirectory directory to write resources
+     * @return generated resources
+     * @throws IOException if an I/O error occurs, a source file is invalid or the source directory does not exist
+     */
+    static List<Path> generate(Path sourceDirectory,
+            Path outputDirectory) throws IOException {
+        if (!Files.isDirectory(sourceDirectory)) {
+            throw new NoSuchFileException(sourceDirectory
+                    .toString(), null, "source directory does not exist");
+        }
+        List<Path> generated = new ArrayList<Path>();
+        List<Path> sources;
+        try (Stream<Path> paths = Files.walk(sourceDirectory)) {
+            sources = paths.filter(p -> p.toString().endsWith(
+                    SOURCE_EXTENSION)).sorted().collect(Collectors.toList());
+        }
+        for (Path source : sources) {
+            String relative = sourceDirectory.relativize(source).toString();
+            Path output = outputDirectory.resolve(relative.substring(0, relative
+                    .length() - SOURCE_EXTENSION.length())
+                    + CodePointsResource.EXTENSION);
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            CodePointTable table = parse(source);
+            try (OutputStream out = Files.newOutputStream(output)) {
+                CodePointsResource.write(table, out);
+            }
+            generated.add(output);
+        }
+        return generated;
+    }
+
+    /**
+     * Parse the given source file.
+     * @param source source file
+     * @return table
+     * @throws IOException if an I/O error occurs or the source file is invalid
+     */
+    static CodePointTable parse(Path source) throws IOException {
+        int[] ranges = new int[64];
+        int n = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(source,
+                StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String value = (comment >= 0 ? line.substring(0, comment)
+                        : line).trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                if (n + 2 > ranges.length) {
+                    ranges = Arrays.copyOf(ranges, ranges.length << 1);
+                }
+                try {
+                    int hyphen = value.indexOf('-');
+                    int start = parseCodePoint(hyphen >= 0 ? value.substring(0,
+                            hyphen) : value);
+                    int end = hyphen >= 0 ? parseCodePoint(value.substring(
+                            hyphen + 1)) : start;
+                    if (end < start) {
+                        throw new NumberFormatException("end of range is less than start");
+                    }
+                    ranges[n++] = start;
+                    ranges[n++] = end;
+                } catch (NumberFormatException e) {
+                    throw new IOException("invalid code point at " + source
+                            + ":" + lineNumber + " (" + value + ")", e);
+                }
+            }
+        }
+        return CodePointTable.ofRanges(ranges, n / 2);
+    }
+
+    /**
+     * Parse the given hexadecimal code point such as {@code 0x4E9C}.
+     * @param value code point to parse
+     * @return code point
+     * @throws NumberFormatException if the value is not a valid code point
+     */
+    private static int parseCodePoint(String value) {
+        String s = value.trim();
+        if (s.startsWith("0x") || s.startsWith("0X")) {
+            s = s.substring(2);
+        }
+        int codePoint = Integer.parseInt(s, 16);
+        if (!Character.isValidCodePoint(codePoint)) {
+            throw new NumberFormatException("invalid code point");
+        }
+        return codePoint;
+    }
+}
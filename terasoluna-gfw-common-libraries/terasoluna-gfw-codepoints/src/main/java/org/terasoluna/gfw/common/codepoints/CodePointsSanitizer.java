@@ -0,0 +1,274 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Sanitizer which replaces code points not included in the target {@link CodePoints} with the replacement string, or removes
+ * them if the replacement is empty.
+ *
+ * <pre>
+ * <code>CodePointsSanitizer sanitizer = CodePoints.of(JIS_X_0208_Hiragana.class).sanitizer("〓");
+ * sanitizer.sanitize("あいう"); // "あいう" (same instance)
+ * sanitizer.sanitize("あaい"); // "あ〓い"
+ *
+ * CodePointsSanitizer stripper = CodePoints.of(ASCIIPrintableChars.class).sanitizer("");
+ * stripper.sanitize("a\tb\r\n"); // "ab"</code>
+ * </pre>
+ * <p>
+ * Each method scans the input once. This class is immutable and thread-safe. Use {@link CodePoints#sanitizer(String)} to
+ * create an instance.
+ * </p>
+ * @since 5.7.0
+ */
+public final class CodePointsSanitizer {
+
+    /**
+     * allowed code points.
+     */
+    private final CodePointTable table;
+
+    /**
+     * replacement of the code points which are not allowed.
+     */
+    private final String replacement;
+
+    /**
+     * Constructor.
+     * @param table allowed code points
+     * @param replacement replacement of the code points which are not allowed. an empty string to remove them.
+     * @throws IllegalArgumentException if {@code replacement} is {@code null}
+     */
+    CodePointsSanitizer(CodePointTable table, String replacement) {
+        if (replacement == null) {
+            throw new IllegalArgumentException("replacement must not be null");
+        }
+        this.table = table;
+        this.replacement = replacement;
+    }
+
+    /**
+     * returns the replacement of the code points which are not allowed.
+     * @return replacement. an empty string if they are removed.
+     */
+    public String getReplacement() {
+        return replacement;
+    }
+
+    /**
+     * Sanitize the given string.
+     * @param s string to sanitize
+     * @return sanitized string. the given instance itself if all code points are allowed. {@code null} if the given string is
+     *         {@code null}.
+     */
+    public String sanitize(String s) {
+        if (s == null) {
+            return null;
+        }
+        int first = table.indexOfExcluded(s, 0, s.length());
+        if (first < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length() + replacement
+                .length());
+        sb.append(s, 0, first);
+        try {
+            appendSanitized(s, first, s.length(), sb);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Sanitize the given chars and append them to the given {@link Appendable}.
+     * @param s chars to sanitize
+     * @param out destination
+     * @return the number of code points replaced or removed
+     * @throws IOException if an I/O error occurs
+     */
+    public int sanitize(CharSequence s, Appendable out) throws IOException {
+        return appendSanitized(s, 0, s.length(), out);
+    }
+
+    /**
+     * Wrap the given writer so that written chars are sanitized. A surrogate pair split across two writes is combined into one
+     * code point. A high surrogate left when the writer is closed is sanitized as is.
+     * @param out writer to write sanitized chars
+     * @return sanitizing writer
+     */
+    public Writer writer(Writer out) {
+        return new SanitizingWriter(out);
+    }
+
+    /**
+     * Sanitize the given range of chars and append them.
+     * @param s chars to sanitize
+     * @param start index of the first char
+     * @param end index after the last char
+     * @param out destination
+     * @return the number of code points replaced or removed
+     * @throws IOException if an I/O error occurs
+     */
+    private int appendSanitized(CharSequence s, int start, int end,
+            Appendable out) throws IOException {
+        int count = 0;
+        int runStart = start;
+        int codePoint;
+        for (int i = start; i < end; i += Character.charCount(codePoint)) {
+            codePoint = codePointAt(s, i, end);
+            if (!table.contains(codePoint)) {
+                // append the allowed chars before the code point at once
+                out.append(s, runStart, i).append(replacement);
+                runStart = i + Character.charCount(codePoint);
+                count++;
+            }
+        }
+        out.append(s, runStart, end);
+        return count;
+    }
+
+    /**
+     * returns the code point at the given index without reading beyond the end.
+     * @param s chars
+     * @param index index of the code point
+     * @param end index after the last char
+     * @return code point
+     */
+    private static int codePointAt(CharSequence s, int index, int end) {
+        char c = s.charAt(index);
+        if (Character.isHighSurrogate(c) && index + 1 < end) {
+            char low = s.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(c, low);
+            }
+        }
+        return c;
+    }
+
+    /**
+     * {@link Writer} which sanitizes written chars.
+     */
+    private final class SanitizingWriter extends FilterWriter {
+
+        /**
+         * high surrogate waiting for the next write. {@code 0} if none.
+         */
+        private char pendingHighSurrogate;
+
+        /**
+         * Constructor.
+         * @param out writer to write sanitized chars
+         */
+        SanitizingWriter(Writer out) {
+            super(out);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(int c) throws IOException {
+            write(new char[] { (char) c }, 0, 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            writeSanitized(CharBuffer.wrap(cbuf, off, len), 0, len);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            writeSanitized(str, off, off + len);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            flushPendingHighSurrogate();
+            super.close();
+        }
+
+        /**
+         * Sanitize the given range of chars and write them.
+         * @param s chars to write
+         * @param start index of the first char
+         * @param end index after the last char
+         * @throws IOException if an I/O error occurs
+         */
+        private void writeSanitized(CharSequence s, int start,
+                int end) throws IOException {
+            if (start >= end) {
+                return;
+            }
+            int i = start;
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                char c = s.charAt(i);
+                if (Character.isLowSurrogate(c)) {
+                    writeCodePoint(Character.toCodePoint(high, c));
+                    i++;
+                } else {
+                    writeCodePoint(high);
+                }
+            }
+            if (i < end && Character.isHighSurrogate(s.charAt(end - 1))) {
+                // keep the last high surrogate to combine with the next write
+                pendingHighSurrogate = s.charAt(--end);
+            }
+            appendSanitized(s, i, end, out);
+        }
+
+        /**
+         * write the pending high surrogate as is or the replacement.
+         * @throws IOException if an I/O error occurs
+         */
+        private void flushPendingHighSurrogate() throws IOException {
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                writeCodePoint(high);
+            }
+        }
+
+        /**
+         * write the given code point or the replacement.
+         * @param codePoint code point to write
+         * @throws IOException if an I/O error occurs
+         */
+        private void writeCodePoint(int codePoint) throws IOException {
+            if (table.contains(codePoint)) {
+                out.write(Character.toChars(codePoint));
+            } else {
+                out.write(replacement);
+            }
+        }
+    }
+}
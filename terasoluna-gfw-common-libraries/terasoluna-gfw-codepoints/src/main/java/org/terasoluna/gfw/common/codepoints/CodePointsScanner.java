@@ -0,0 +1,261 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Incremental scanner which finds code points not included in the target {@link CodePoints}.
+ * <p>
+ * Input is given as consecutive chunks of chars, so that large input such as uploaded files can be checked with constant memory.
+ * A surrogate pair split across two chunks is combined into one code point. Line terminators ({@code "\r\n"}, {@code "\r"} and
+ * {@code "\n"}) are not checked but used to count lines. Scanning stops when the maximum number of violations is found.
+ * </p>
+ * <p>
+ * Runs of chars are checked in bulk by {@link CodePointTable#indexOfExcluded(CharSequence, int, int)}, so that Latin-1 chars
+ * are checked against the bitmap without decoding code points. Only line terminators, surrogates and excluded code points are
+ * handled char by char.
+ * </p>
+ *
+ * <pre>
+ * <code>CodePointsScanner scanner = codePoints.scanner(100);
+ * while (scanner.scan(reader)) {
+ *     // ...
+ * }
+ * List&lt;CodePointViolation&gt; violations = scanner.finish();</code>
+ * </pre>
+ * <p>
+ * This class is not thread-safe. Use {@link CodePoints#scanner(int)} to create an instance.
+ * </p>
+ * @since 5.7.0
+ */
+public final class CodePointsScanner {
+
+    /**
+     * size of the buffer to read {@link Reader}.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * target code points.
+     */
+    private final CodePointTable table;
+
+    /**
+     * target code points without line terminators and supplementary code points, used to scan runs of chars in bulk.
+     */
+    private final CodePointTable runTable;
+
+    /**
+     * maximum number of violations to collect.
+     */
+    private final int maxViolations;
+
+    /**
+     * found violations.
+     */
+    private final List<CodePointViolation> violations;
+
+    /**
+     * char offset of the next char.
+     */
+    private long offset;
+
+    /**
+     * current line number.
+     */
+    private long line = 1;
+
+    /**
+     * column number of the next code point.
+     */
+    private long column = 1;
+
+    /**
+     * high surrogate waiting for the next chunk. {@code 0} if none.
+     */
+    private char pendingHighSurrogate;
+
+    /**
+     * whether the last char was {@code '\r'}.
+     */
+    private boolean afterCarriageReturn;
+
+    /**
+     * Constructor.
+     * @param table target code points
+     * @param maxViolations maximum number of violations to collect
+     * @throws IllegalArgumentException if {@code maxViolations} is less than 1
+     */
+    CodePointsScanner(CodePointTable table, int maxViolations) {
+        if (maxViolations < 1) {
+            throw new IllegalArgumentException("maxViolations must be greater than 0 (maxViolations = "
+                    + maxViolations + ")");
+        }
+        this.table = table;
+        this.runTable = table.scannerTable();
+        this.maxViolations = maxViolations;
+        this.violations = new ArrayList<CodePointViolation>(Math.min(
+                maxViolations, 16));
+    }
+
+    /**
+     * Scan the given chars.
+     * @param chars chars to scan
+     * @param off offset of the first char
+     * @param len number of chars
+     * @return {@code false} if the maximum number of violations has been found and no more input is needed. Otherwise
+     *         {@code true}.
+     */
+    public boolean scan(char[] chars, int off, int len) {
+        consume(CharBuffer.wrap(chars), off, off + len);
+        return !isFull();
+    }
+
+    /**
+     * Scan the remaining chars of the given buffer. The position of the buffer is advanced to the limit unless the maximum
+     * number of violations is found.
+     * @param buffer chars to scan
+     * @return {@code false} if the maximum number of violations has been found and no more input is needed. Otherwise
+     *         {@code true}.
+     */
+    public boolean scan(CharBuffer buffer) {
+        int n = consume(buffer, 0, buffer.remaining());
+        buffer.position(buffer.position() + n);
+        return !isFull();
+    }
+
+    /**
+     * Scan the given reader until the end of the stream or the maximum number of violations is found. The reader is not closed.
+     * @param reader chars to scan
+     * @return {@code false} if the maximum number of violations has been found. Otherwise {@code true}.
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean scan(Reader reader) throws IOException {
+        char[] buf = new char[BUFFER_SIZE];
+        int n;
+        while (!isFull() && (n = reader.read(buf)) != -1) {
+            scan(buf, 0, n);
+        }
+        return !isFull();
+    }
+
+    /**
+     * returns whether the maximum number of violations has been found.
+     * @return {@code true} if no more input is needed
+     */
+    public boolean isFull() {
+        return violations.size() >= maxViolations;
+    }
+
+    /**
+     * Finish scanning and returns the found violations. A high surrogate left at the end of the input is checked as is.
+     * @return violations in order of appearance. an empty list if all code points are included.
+     */
+    public List<CodePointViolation> finish() {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            check(high, 1);
+        }
+        return Collections.unmodifiableList(violations);
+    }
+
+    /**
+     * Scan the given range of chars until the maximum number of violations is found.
+     * @param s chars to scan
+     * @param start index of the first char
+     * @param end index after the last char
+     * @return number of scanned chars
+     */
+    private int consume(CharSequence s, int start, int end) {
+        // a high surrogate at the end may be paired with the first char of the next chunk
+        int runEnd = end > start && Character.isHighSurrogate(s.charAt(end
+                - 1)) ? end - 1 : end;
+        int i = start;
+        while (i < end && !isFull()) {
+            if (pendingHighSurrogate == 0 && i < runEnd) {
+                int j = runTable.indexOfExcluded(s, i, runEnd);
+                if (j < 0) {
+                    j = runEnd;
+                }
+                if (j > i) {
+                    // all chars in the run are included code points in the BMP except line terminators
+                    column += j - i;
+                    offset += j - i;
+                    afterCarriageReturn = false;
+                    i = j;
+                    continue;
+                }
+            }
+            next(s.charAt(i++));
+        }
+        return i - start;
+    }
+
+    /**
+     * Scan the next char.
+     * @param c char to scan
+     */
+    private void next(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                check(Character.toCodePoint(high, c), 2);
+                return;
+            }
+            // unpaired high surrogate is checked as is like String#codePointAt
+            check(high, 1);
+            if (isFull()) {
+                return;
+            }
+        }
+        if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+            return;
+        }
+        check(c, 1);
+    }
+
+    /**
+     * Check the given code point and advance the position.
+     * @param codePoint code point to check
+     * @param charCount number of chars of the code point
+     */
+    private void check(int codePoint, int charCount) {
+        if (codePoint == '\r' || codePoint == '\n') {
+            if (codePoint == '\r' || !afterCarriageReturn) {
+                line++;
+            }
+            column = 1;
+            afterCarriageReturn = codePoint == '\r';
+            offset++;
+            return;
+        }
+        afterCarriageReturn = false;
+        if (!table.contains(codePoint)) {
+            violations.add(new CodePointViolation(codePoint, line, column, offset));
+        }
+        column++;
+        offset += charCount;
+    }
+}
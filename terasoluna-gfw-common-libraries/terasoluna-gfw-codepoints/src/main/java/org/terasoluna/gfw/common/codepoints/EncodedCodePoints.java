@@ -0,0 +1,380 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * {@link CodePoints} to check byte sequences encoded in a charset without decoding them to strings.
+ * <p>
+ * For Shift_JIS and EUC-JP families, every byte sequence of a character is decoded once when the instance is created and the
+ * sequences which consist of the target code points are held in bitmaps, so that checking is a lookup per character. UTF-8 is
+ * decoded on the fly into code points without allocating chars. In all cases the result is same as decoding the bytes and
+ * checking the string by {@link CodePoints#containsAll(String)}. Malformed sequences are not included.
+ * </p>
+ * <p>
+ * Supported charsets are {@code UTF-8}, {@code Shift_JIS}, {@code windows-31j}, {@code x-SJIS_0213}, {@code EUC-JP},
+ * {@code x-euc-jp-linux} and {@code x-eucJP-Open}. Since creating an instance for Shift_JIS and EUC-JP families costs decoding
+ * every byte sequence, create it once with {@link CodePoints#encoded(Charset)} and reuse it. This class is immutable and
+ * thread-safe.
+ * </p>
+ * @since 5.7.0
+ */
+public final class EncodedCodePoints {
+
+    /**
+     * byte layout of the charset.
+     */
+    private enum Layout {
+        /**
+         * UTF-8.
+         */
+        UTF_8,
+        /**
+         * Shift_JIS family. a byte in 0x81-0x9F or 0xE0-0xFC leads a 2 bytes character.
+         */
+        SHIFT_JIS,
+        /**
+         * EUC-JP family. 0x8F leads a 3 bytes character. 0x8E or a byte in 0xA1-0xFE leads a 2 bytes character.
+         */
+        EUC_JP
+    }
+
+    /**
+     * target code points.
+     */
+    private final CodePointTable table;
+
+    /**
+     * charset of the byte sequences.
+     */
+    private final Charset charset;
+
+    /**
+     * byte layout of the charset.
+     */
+    private final Layout layout;
+
+    /**
+     * bitmap of the allowed 1 byte characters indexed by the byte.
+     */
+    private final long[] singleBytes;
+
+    /**
+     * bitmap of the allowed 2 bytes characters indexed by {@code (b1 << 8 | b2)}.
+     */
+    private final long[] doubleBytes;
+
+    /**
+     * bitmap of the allowed 3 bytes characters (EUC-JP only) indexed by {@code (b2 << 8 | b3)}.
+     */
+    private final long[] tripleBytes;
+
+    /**
+     * Constructor.
+     * @param table target code points
+     * @param charset charset of the byte sequences
+     * @throws IllegalArgumentException if the charset is not supported
+     */
+    EncodedCodePoints(CodePointTable table, Charset charset) {
+        this.table = table;
+        this.charset = charset;
+        this.layout = layout(charset);
+        if (layout == Layout.UTF_8) {
+            this.singleBytes = null;
+            this.doubleBytes = null;
+            this.tripleBytes = null;
+            return;
+        }
+        CharsetDecoder decoder = charset.newDecoder().onMalformedInput(
+                CodingErrorAction.REPORT).onUnmappableCharacter(
+                        CodingErrorAction.REPORT);
+        this.singleBytes = new long[256 >>> 6];
+        this.doubleBytes = new long[65536 >>> 6];
+        this.tripleBytes = layout == Layout.EUC_JP ? new long[65536 >>> 6]
+                : null;
+        byte[] seq = new byte[3];
+        for (int b1 = 0; b1 < 256; b1++) {
+            seq[0] = (byte) b1;
+            if (!isLeadByte(b1) && allowed(decoder, seq, 1)) {
+                set(singleBytes, b1);
+            }
+            if (b1 < 0x80) {
+                // ASCII never leads a multibyte character
+                continue;
+            }
+            for (int b2 = 0; b2 < 256; b2++) {
+                seq[1] = (byte) b2;
+                if (layout == Layout.EUC_JP && b1 == 0x8F) {
+                    if (b2 < 0xA1) {
+                        continue;
+                    }
+                    for (int b3 = 0xA1; b3 < 256; b3++) {
+                        seq[2] = (byte) b3;
+                        if (allowed(decoder, seq, 3)) {
+                            set(tripleBytes, b2 << 8 | b3);
+                        }
+                    }
+                } else if (isLeadByte(b1) && allowed(decoder, seq, 2)) {
+                    set(doubleBytes, b1 << 8 | b2);
+                }
+            }
+        }
+    }
+
+    /**
+     * returns the charset of the byte sequences.
+     * @return charset
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * returns whether all characters in the given bytes are included in the target code points.
+     * @param bytes target bytes
+     * @return {@code true} if all characters are included or the bytes is {@code null}. {@code false} if a character is not
+     *         included or the bytes are malformed.
+     */
+    public boolean containsAll(byte[] bytes) {
+        return bytes == null || firstExcludedIndex(bytes, 0, bytes.length) < 0;
+    }
+
+    /**
+     * returns the index of the first character in the given range of bytes which is not included in the target code points.
+     * @param bytes target bytes
+     * @param off index of the first byte
+     * @param len number of bytes
+     * @return index of the first byte of the character which is not included or malformed. {@code -1} if all characters are
+     *         included.
+     * @throws IndexOutOfBoundsException if the range is out of the bytes
+     */
+    public int firstExcludedIndex(byte[] bytes, int off, int len) {
+        if (off < 0 || len < 0 || off > bytes.length - len) {
+            throw new IndexOutOfBoundsException("off = " + off + ", len = "
+                    + len + ", length = " + bytes.length);
+        }
+        int end = off + len;
+        switch (layout) {
+        case UTF_8:
+            return firstExcludedIndexUtf8(bytes, off, end);
+        case SHIFT_JIS:
+            return firstExcludedIndexShiftJis(bytes, off, end);
+        default:
+            return firstExcludedIndexEucJp(bytes, off, end);
+        }
+    }
+
+    /**
+     * check UTF-8 bytes.
+     * @param bytes target bytes
+     * @param off index of the first byte
+     * @param end index after the last byte
+     * @return index of the first byte of the character which is not included or malformed. {@code -1} if all characters are
+     *         included.
+     */
+    private int firstExcludedIndexUtf8(byte[] bytes, int off, int end) {
+        int i = off;
+        while (i < end) {
+            int b = bytes[i] & 0xFF;
+            int n;
+            int codePoint;
+            if (b < 0x80) {
+                n = 1;
+                codePoint = b;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                n = 2;
+                codePoint = b & 0x1F;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                n = 3;
+                codePoint = b & 0x0F;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                n = 4;
+                codePoint = b & 0x07;
+            } else {
+                return i;
+            }
+            if (n > end - i) {
+                return i;
+            }
+            for (int k = 1; k < n; k++) {
+                int c = bytes[i + k] & 0xFF;
+                if ((c & 0xC0) != 0x80) {
+                    return i;
+                }
+                codePoint = codePoint << 6 | (c & 0x3F);
+            }
+            // reject overlong forms, surrogates and code points beyond U+10FFFF
+            if ((n == 3 && (codePoint < 0x800 || (codePoint >= 0xD800
+                    && codePoint <= 0xDFFF))) || (n == 4
+                            && (codePoint < 0x10000 || codePoint > 0x10FFFF))
+                    || !table.contains(codePoint)) {
+                return i;
+            }
+            i += n;
+        }
+        return -1;
+    }
+
+    /**
+     * check Shift_JIS bytes.
+     * @param bytes target bytes
+     * @param off index of the first byte
+     * @param end index after the last byte
+     * @return index of the first byte of the character which is not included or malformed. {@code -1} if all characters are
+     *         included.
+     */
+    private int firstExcludedIndexShiftJis(byte[] bytes, int off, int end) {
+        int i = off;
+        while (i < end) {
+            int b1 = bytes[i] & 0xFF;
+            if (!isLeadByte(b1)) {
+                if (!get(singleBytes, b1)) {
+                    return i;
+                }
+                i++;
+            } else if (i + 1 < end && get(doubleBytes, b1 << 8 | (bytes[i
+                    + 1] & 0xFF))) {
+                i += 2;
+            } else {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * check EUC-JP bytes.
+     * @param bytes target bytes
+     * @param off index of the first byte
+     * @param end index after the last byte
+     * @return index of the first byte of the character which is not included or malformed. {@code -1} if all characters are
+     *         included.
+     */
+    private int firstExcludedIndexEucJp(byte[] bytes, int off, int end) {
+        int i = off;
+        while (i < end) {
+            int b1 = bytes[i] & 0xFF;
+            if (b1 == 0x8F) {
+                if (i + 2 < end && get(tripleBytes, (bytes[i + 1] & 0xFF) << 8
+                        | (bytes[i + 2] & 0xFF))) {
+                    i += 3;
+                } else {
+                    return i;
+                }
+            } else if (!isLeadByte(b1)) {
+                if (!get(singleBytes, b1)) {
+                    return i;
+                }
+                i++;
+            } else if (i + 1 < end && get(doubleBytes, b1 << 8 | (bytes[i
+                    + 1] & 0xFF))) {
+                i += 2;
+            } else {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * returns whether the given byte leads a 2 bytes character.
+     * @param b byte to check
+     * @return {@code true} if the byte leads a 2 bytes character
+     */
+    private boolean isLeadByte(int b) {
+        if (layout == Layout.SHIFT_JIS) {
+            return (b >= 0x81 && b <= 0x9F) || (b >= 0xE0 && b <= 0xFC);
+        }
+        return b == 0x8E || (b >= 0xA1 && b <= 0xFE);
+    }
+
+    /**
+     * returns whether the given byte sequence is decoded to the target code points.
+     * @param decoder decoder of the charset
+     * @param seq byte sequence
+     * @param len length of the sequence
+     * @return {@code true} if all decoded code points are included
+     */
+    private boolean allowed(CharsetDecoder decoder, byte[] seq, int len) {
+        CharBuffer chars;
+        try {
+            chars = decoder.decode(ByteBuffer.wrap(seq, 0, len));
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+        int n = chars.length();
+        if (n == 0) {
+            return false;
+        }
+        int codePoint;
+        for (int i = 0; i < n; i += Character.charCount(codePoint)) {
+            codePoint = Character.codePointAt(chars, i);
+            if (!table.contains(codePoint)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * returns the byte layout of the given charset.
+     * @param charset charset
+     * @return byte layout
+     * @throws IllegalArgumentException if the charset is not supported
+     */
+    private static Layout layout(Charset charset) {
+        switch (charset.name()) {
+        case "UTF-8":
+            return Layout.UTF_8;
+        case "Shift_JIS":
+        case "windows-31j":
+        case "x-SJIS_0213":
+            return Layout.SHIFT_JIS;
+        case "EUC-JP":
+        case "x-euc-jp-linux":
+        case "x-eucJP-Open":
+            return Layout.EUC_JP;
+        default:
+            throw new IllegalArgumentException("unsupported charset (charset = "
+                    + charset.name() + ")");
+        }
+    }
+
+    /**
+     * set the bit of the given bitmap.
+     * @param bitmap bitmap
+     * @param index index of the bit
+     */
+    private static void set(long[] bitmap, int index) {
+        bitmap[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * get the bit of the given bitmap.
+     * @param bitmap bitmap
+     * @param index index of the bit
+     * @return {@code true} if the bit is set
+     */
+    private static boolean get(long[] bitmap, int index) {
+        return (bitmap[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scan of long strings on {@link ForkJoinPool}.
+ * <p>
+ * The string is split into chunks at indexes which do not split a surrogate pair, and the chunks are scanned in parallel. The
+ * lowest index of the code points not included is returned, so that the result is same as the sequential scan. Chunks after
+ * the lowest index found so far are skipped.
+ * </p>
+ * @since 5.7.0
+ */
+final class ParallelScan extends RecursiveTask<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * name of the system property to specify the length threshold. strings whose length is greater than or equal to the
+     * threshold are scanned in parallel. {@code 0} or negative value disables parallel scan.
+     */
+    static final String THRESHOLD_PROPERTY = "org.terasoluna.gfw.common.codepoints.parallelThreshold";
+
+    /**
+     * default length threshold (1M chars).
+     */
+    static final int DEFAULT_THRESHOLD = 1 << 20;
+
+    /**
+     * length threshold to scan in parallel. read from {@link #THRESHOLD_PROPERTY} only once when this class is loaded.
+     */
+    static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY,
+            DEFAULT_THRESHOLD);
+
+    /**
+     * minimum number of chars of a chunk.
+     */
+    private static final int MIN_CHUNK_SIZE = 8192;
+
+    /**
+     * target code points.
+     */
+    private final CodePointTable table;
+
+    /**
+     * chars to scan.
+     */
+    private final CharSequence s;
+
+    /**
+     * index of the first char of this task.
+     */
+    private final int start;
+
+    /**
+     * index after the last char of this task.
+     */
+    private final int end;
+
+    /**
+     * number of chars to scan without splitting.
+     */
+    private final int chunkSize;
+
+    /**
+     * the lowest index found so far shared among the tasks.
+     */
+    private final AtomicInteger found;
+
+    /**
+     * Constructor.
+     * @param table target code points
+     * @param s chars to scan
+     * @param start index of the first char
+     * @param end index after the last char
+     * @param chunkSize number of chars to scan without splitting
+     * @param found the lowest index found so far
+     */
+    private ParallelScan(CodePointTable table, CharSequence s, int start,
+            int end, int chunkSize, AtomicInteger found) {
+        this.table = table;
+        this.s = s;
+        this.start = start;
+        this.end = end;
+        this.chunkSize = chunkSize;
+        this.found = found;
+    }
+
+    /**
+     * returns the char index of the first code point in the given chars which is not included. The chars are scanned in
+     * parallel if the length is greater than or equal to the threshold.
+     * @param table target code points
+     * @param s chars to check
+     * @param threshold length threshold to scan in parallel. {@code 0} or negative value to scan sequentially.
+     * @return char index of the first code point which is not included. {@code -1} if all code points are included.
+     */
+    static int indexOfExcluded(CodePointTable table, CharSequence s,
+            int threshold) {
+        int len = s.length();
+        if (threshold <= 0 || len < threshold) {
+            return table.indexOfExcluded(s, 0, len);
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, len / (pool.getParallelism()
+                * 4));
+        return pool.invoke(new ParallelScan(table, s, 0, len, chunkSize,
+                new AtomicInteger(Integer.MAX_VALUE)));
+    }
+
+    /**
+     * scan the chunk, or split it and scan both halves.
+     * @return char index of the first code point which is not included. {@code -1} if all code points are included or the
+     *         chunk is after the index already found.
+     */
+    @Override
+    protected Integer compute() {
+        if (start > found.get()) {
+            // a lower index has been found
+            return -1;
+        }
+        if (end - start <= chunkSize) {
+            int index = table.indexOfExcluded(s, start, end);
+            if (index >= 0) {
+                found.accumulateAndGet(index, Math::min);
+            }
+            return index;
+        }
+        int mid = split(start + (end - start) / 2);
+        ParallelScan right = new ParallelScan(table, s, mid, end, chunkSize, found);
+        right.fork();
+        int index = new ParallelScan(table, s, start, mid, chunkSize, found)
+                .compute();
+        if (index >= 0) {
+            right.cancel(false);
+            return index;
+        }
+        return right.join();
+    }
+
+    /**
+     * adjust the given index not to split a surrogate pair.
+     * @param index index to split
+     * @return index which does not split a surrogate pair
+     */
+    private int split(int index) {
+        if (Character.isLowSurrogate(s.charAt(index)) && Character
+                .isHighSurrogate(s.charAt(index - 1))) {
+            return index + 1;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints.validator;
+
+import org.terasoluna.gfw.common.codepoints.CodePoints;
+import org.terasoluna.gfw.common.codepoints.ConsistOf;
+
+/**
+ * SPI to record the validations by {@link ConsistOf}.
+ * <p>
+ * Metrics are disabled by default. To enable them, set an implementation by
+ * {@link ConsistOfValidator#setMetrics(ConsistOfMetrics)} or register it as a service provider in
+ * {@code META-INF/services/org.terasoluna.gfw.common.codepoints.validator.ConsistOfMetrics}, which is loaded by
+ * {@link java.util.ServiceLoader} when {@link ConsistOfValidator} is initialized. {@link JmxConsistOfMetrics} is the default
+ * implementation which exposes the statistics as MXBeans.
+ * </p>
+ * <p>
+ * Implementations are called from concurrent validations and must be thread-safe. An implementation holding resources such
+ * as registered MXBeans is released by its owner on shutdown. For the one loaded as a service provider, get it by
+ * {@link ConsistOfValidator#getMetrics()}, disable it by {@code ConsistOfValidator.setMetrics(null)} and release it.
+ * </p>
+ * @see JmxConsistOfMetrics
+ * @since 5.7.0
+ */
+public interface ConsistOfMetrics {
+
+    /**
+     * record a validation.
+     * <p>
+     * The constraint is identified by the fully qualified names of the {@link CodePoints} classes specified by
+     * {@link ConsistOf#value()} joined by {@code ","}, followed by {@code ";groups=<groups>"} and {@code ";payload=<payload>"}
+     * in the same form if {@link ConsistOf#groups()} and {@link ConsistOf#payload()} are specified. To record a constraint
+     * separately from others which specify the same classes, give it a {@link javax.validation.Payload} naming it as following:
+     * </p>
+     *
+     * <pre>
+     * <code>&#64;ConsistOf(value = JIS_X_0208_Kanji.class, payload = CustomerName.class)
+     * private String name;</code>
+     * </pre>
+     * @param constraint name of the constraint
+     * @param scannedChars number of the chars scanned until the result is determined
+     * @param elapsedNanos time spent for the validation in nanoseconds
+     * @param rejectedCodePoint the first code point which is not included. {@link CodePoints#NOT_FOUND} if the value is valid.
+     */
+    void record(String constraint, int scannedChars, long elapsedNanos,
+            int rejectedCodePoint);
+}
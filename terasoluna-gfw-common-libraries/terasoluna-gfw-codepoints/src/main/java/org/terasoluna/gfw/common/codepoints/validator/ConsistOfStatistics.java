@@ -0,0 +1,368 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints.validator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.terasoluna.gfw.common.codepoints.CodePoints;
+
+/**
+ * Statistics of the validations by a constraint.
+ * <p>
+ * Counters are {@link LongAdder}s so that concurrent validations do not contend. Rejected code points are counted by the
+ * Space-Saving algorithm, which tracks a fixed number of code points and replaces the least frequent one when a new code point
+ * comes, so that memory is bounded regardless of the variety of the rejected code points. The tracked code points are held in
+ * a stream-summary, that is a list of buckets in ascending order of the count, so that each rejection is counted in constant
+ * time.
+ * </p>
+ * @since 5.7.0
+ */
+final class ConsistOfStatistics implements ConsistOfStatisticsMXBean {
+
+    /**
+     * number of the tracked code points per the reported ones. tracking more than reported improves the accuracy.
+     */
+    private static final int TRACKING_FACTOR = 4;
+
+    /**
+     * name of the constraint.
+     */
+    private final String constraint;
+
+    /**
+     * number of the reported code points.
+     */
+    private final int topN;
+
+    /**
+     * number of the validations.
+     */
+    private final LongAdder validations = new LongAdder();
+
+    /**
+     * number of the rejected values.
+     */
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * number of the scanned chars.
+     */
+    private final LongAdder scannedChars = new LongAdder();
+
+    /**
+     * total time in nanoseconds.
+     */
+    private final LongAdder totalTimeNanos = new LongAdder();
+
+    /**
+     * maximum number of the tracked code points.
+     */
+    private final int capacity;
+
+    /**
+     * tracked code points. guarded by {@code this}.
+     */
+    private final Map<Integer, Counter> counters;
+
+    /**
+     * bucket of the least count. {@code null} if no code point is tracked. guarded by {@code this}.
+     */
+    private Bucket minBucket;
+
+    /**
+     * Constructor.
+     * @param constraint name of the constraint
+     * @param topN number of the reported code points
+     */
+    ConsistOfStatistics(String constraint, int topN) {
+        this.constraint = constraint;
+        this.topN = topN;
+        this.capacity = topN * TRACKING_FACTOR;
+        this.counters = new HashMap<Integer, Counter>(capacity * 2);
+    }
+
+    /**
+     * record a validation.
+     * @param scanned number of the scanned chars
+     * @param elapsedNanos time spent in nanoseconds
+     * @param rejectedCodePoint the rejected code point. {@link CodePoints#NOT_FOUND} if the value is valid.
+     */
+    void record(int scanned, long elapsedNanos, int rejectedCodePoint) {
+        validations.increment();
+        scannedChars.add(scanned);
+        totalTimeNanos.add(elapsedNanos);
+        if (rejectedCodePoint != CodePoints.NOT_FOUND) {
+            rejections.increment();
+            countRejected(rejectedCodePoint);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getConstraint() {
+        return constraint;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValidations() {
+        return validations.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getScannedChars() {
+        return scannedChars.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTotalTimeNanos() {
+        return totalTimeNanos.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Map<String, Long> getTopRejectedCodePoints() {
+        List<Counter> entries = new ArrayList<Counter>(counters.values());
+        entries.sort((a, b) -> {
+            int c = Long.compare(b.bucket.count, a.bucket.count);
+            return c != 0 ? c : Integer.compare(a.codePoint, b.codePoint);
+        });
+        Map<String, Long> top = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < entries.size() && i < topN; i++) {
+            Counter counter = entries.get(i);
+            top.put(String.format("U+%04X", counter.codePoint),
+                    counter.bucket.count);
+        }
+        return top;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        validations.reset();
+        rejections.reset();
+        scannedChars.reset();
+        totalTimeNanos.reset();
+        synchronized (this) {
+            counters.clear();
+            minBucket = null;
+        }
+    }
+
+    /**
+     * count the rejected code point.
+     * @param codePoint rejected code point
+     */
+    private synchronized void countRejected(int codePoint) {
+        Counter counter = counters.get(codePoint);
+        if (counter != null) {
+            increment(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter(codePoint);
+            counters.put(codePoint, counter);
+            if (minBucket == null || minBucket.count != 1) {
+                Bucket bucket = new Bucket(1);
+                bucket.next = minBucket;
+                if (minBucket != null) {
+                    minBucket.prev = bucket;
+                }
+                minBucket = bucket;
+            }
+            minBucket.add(counter);
+            return;
+        }
+        // replace the least frequent code point and inherit its count as the maximum error
+        counter = minBucket.head;
+        counters.remove(counter.codePoint);
+        counter.codePoint = codePoint;
+        counters.put(codePoint, counter);
+        increment(counter);
+    }
+
+    /**
+     * increment the count of the given counter by moving it to the next bucket.
+     * @param counter counter to increment
+     */
+    private void increment(Counter counter) {
+        Bucket bucket = counter.bucket;
+        long count = bucket.count + 1;
+        Bucket next = bucket.next;
+        if (bucket.head == counter && counter.next == null && (next == null
+                || next.count != count)) {
+            // the only counter in the bucket: increment the bucket in place
+            bucket.count = count;
+            return;
+        }
+        bucket.remove(counter);
+        if (next == null || next.count != count) {
+            Bucket created = new Bucket(count);
+            created.prev = bucket;
+            created.next = next;
+            if (next != null) {
+                next.prev = created;
+            }
+            bucket.next = created;
+            next = created;
+        }
+        next.add(counter);
+        if (bucket.head == null) {
+            unlink(bucket);
+        }
+    }
+
+    /**
+     * unlink the given empty bucket from the list.
+     * @param bucket bucket to unlink
+     */
+    private void unlink(Bucket bucket) {
+        if (bucket.prev != null) {
+            bucket.prev.next = bucket.next;
+        } else {
+            minBucket = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+    }
+
+    /**
+     * Tracked code point linked in a {@link Bucket}.
+     */
+    private static final class Counter {
+
+        /**
+         * tracked code point.
+         */
+        int codePoint;
+
+        /**
+         * bucket holding the count of this code point.
+         */
+        Bucket bucket;
+
+        /**
+         * previous counter in the same bucket.
+         */
+        Counter prev;
+
+        /**
+         * next counter in the same bucket.
+         */
+        Counter next;
+
+        /**
+         * Constructor.
+         * @param codePoint tracked code point
+         */
+        Counter(int codePoint) {
+            this.codePoint = codePoint;
+        }
+    }
+
+    /**
+     * Set of the counters which have the same count, linked in ascending order of the count.
+     */
+    private static final class Bucket {
+
+        /**
+         * count of the counters in this bucket.
+         */
+        long count;
+
+        /**
+         * first counter in this bucket. {@code null} if empty.
+         */
+        Counter head;
+
+        /**
+         * bucket of the next smaller count.
+         */
+        Bucket prev;
+
+        /**
+         * bucket of the next larger count.
+         */
+        Bucket next;
+
+        /**
+         * Constructor.
+         * @param count count of the counters in this bucket
+         */
+        Bucket(long count) {
+            this.count = count;
+        }
+
+        /**
+         * add the given counter to this bucket.
+         * @param counter counter to add
+         */
+        void add(Counter counter) {
+            counter.bucket = this;
+            counter.prev = null;
+            counter.next = head;
+            if (head != null) {
+                head.prev = counter;
+            }
+            head = counter;
+        }
+
+        /**
+         * remove the given counter from this bucket.
+         * @param counter counter to remove
+         */
+        void remove(Counter counter) {
+            if (counter.prev != null) {
+                counter.prev.next = counter.next;
+            } else {
+                head = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.prev = counter.prev;
+            }
+            counter.prev = null;
+            counter.next = null;
+        }
+    }
+}
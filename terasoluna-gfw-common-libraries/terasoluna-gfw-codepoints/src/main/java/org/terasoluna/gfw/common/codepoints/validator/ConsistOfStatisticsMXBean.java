@@ -0,0 +1,71 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints.validator;
+
+import java.util.Map;
+
+/**
+ * Statistics of the validations by a {@link org.terasoluna.gfw.common.codepoints.ConsistOf} constraint exposed by
+ * {@link JmxConsistOfMetrics}.
+ * @since 5.7.0
+ */
+public interface ConsistOfStatisticsMXBean {
+
+    /**
+     * returns the name of the constraint.
+     * @return name of the constraint described in {@link ConsistOfMetrics#record(String, int, long, int)}
+     */
+    String getConstraint();
+
+    /**
+     * returns the number of the validations.
+     * @return number of the validations
+     */
+    long getValidations();
+
+    /**
+     * returns the number of the rejected values.
+     * @return number of the rejected values
+     */
+    long getRejections();
+
+    /**
+     * returns the number of the scanned chars.
+     * @return number of the scanned chars
+     */
+    long getScannedChars();
+
+    /**
+     * returns the total time spent for the validations.
+     * @return total time in nanoseconds
+     */
+    long getTotalTimeNanos();
+
+    /**
+     * returns the most frequently rejected code points with their counts in descending order of the count.
+     * <p>
+     * The counts are estimated with bounded memory. A count may be overestimated by at most the count of the least frequent
+     * code point tracked, and the code points rejected rarely may be missing.
+     * </p>
+     * @return counts keyed by the code point in {@code U+XXXX} form
+     */
+    Map<String, Long> getTopRejectedCodePoints();
+
+    /**
+     * reset all statistics.
+     */
+    void reset();
+}
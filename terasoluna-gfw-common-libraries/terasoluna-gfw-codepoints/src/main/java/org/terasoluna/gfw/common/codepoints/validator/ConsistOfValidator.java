@@ -15,6 +15,13 @@
  */
 package org.terasoluna.gfw.common.codepoints.validator;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 
@@ -24,14 +31,37 @@ import org.terasoluna.gfw.common.codepoints.ConsistOf;
 /**
  * Validator implementation corresponding to {@link ConsistOf} annotation. This validator checks whether all code points in the
  * given string are included in any {@link CodePoints} class specified by {@link ConsistOf#value()}.
+ * <p>
+ * The union of the specified {@link CodePoints} classes is compiled in {@link #initialize(ConsistOf)} and shared among the
+ * validators which specify the same classes in the same order.
+ * </p>
+ * <p>
+ * Since 5.7.0, validations can be recorded by {@link ConsistOfMetrics} set by {@link #setMetrics(ConsistOfMetrics)} or
+ * registered as a service provider. Metrics are disabled by default and cost nothing then.
+ * </p>
  * @since 5.1.0
  */
 public class ConsistOfValidator implements
                                 ConstraintValidator<ConsistOf, CharSequence> {
     /**
-     * Array of CodePoints to check
+     * cache of the united {@link CodePoints} keyed by the list of {@link CodePoints} classes
+     */
+    private static final ConcurrentMap<List<Class<? extends CodePoints>>, CodePoints> unionCache = new ConcurrentHashMap<List<Class<? extends CodePoints>>, CodePoints>();
+
+    /**
+     * metrics to record the validations. {@code null} if disabled.
+     */
+    private static volatile ConsistOfMetrics metrics = loadMetrics();
+
+    /**
+     * united CodePoints to check. {@code null} if no {@link CodePoints} class is specified, which accepts any string.
+     */
+    private CodePoints codePoints;
+
+    /**
+     * name of the constraint reported to the metrics
      */
-    private CodePoints[] codePointsArray;
+    private String constraint;
 
     /**
      * initialize to validate with {@link ConsistOf}
@@ -39,11 +69,23 @@ public class ConsistOfValidator implements
      */
     @Override
     public void initialize(ConsistOf consistOf) {
-        Class<? extends CodePoints>[] classes = consistOf.value();
-        this.codePointsArray = new CodePoints[classes.length];
-        for (int i = 0; i < classes.length; i++) {
-            this.codePointsArray[i] = CodePoints.of(classes[i]);
+        this.constraint = constraintName(consistOf);
+        List<Class<? extends CodePoints>> classes = Arrays.asList(consistOf
+                .value());
+        if (classes.isEmpty()) {
+            // no CodePoints class forbids any code point
+            this.codePoints = null;
+            return;
+        }
+        CodePoints united = unionCache.get(classes);
+        if (united == null) {
+            united = union(classes);
+            CodePoints existing = unionCache.putIfAbsent(classes, united);
+            if (existing != null) {
+                united = existing;
+            }
         }
+        this.codePoints = united;
     }
 
     /**
@@ -52,15 +94,110 @@ public class ConsistOfValidator implements
      * @param value the string to check
      * @param context validation context
      * @return {@code true} if all code points in the given string are included in any {@link CodePoints} class specified by
-     *         {@link ConsistOf#value()} or the given string is {@code null}. {@code false} otherwise.
+     *         {@link ConsistOf#value()}, the given string is {@code null} or no {@link CodePoints} class is specified.
+     *         {@code false} otherwise.
      */
     @Override
     public boolean isValid(CharSequence value,
             ConstraintValidatorContext context) {
-        if (value == null) {
+        if (value == null || codePoints == null) {
             return true;
         }
-        String s = value.toString();
-        return CodePoints.containsAllInAnyCodePoints(s, codePointsArray);
+        ConsistOfMetrics m = metrics;
+        if (m == null) {
+            return codePoints.firstExcludedIndex(value) < 0;
+        }
+        long start = System.nanoTime();
+        int index = codePoints.firstExcludedIndex(value);
+        long elapsed = System.nanoTime() - start;
+        if (index < 0) {
+            m.record(constraint, value.length(), elapsed, CodePoints.NOT_FOUND);
+            return true;
+        }
+        int rejected = Character.codePointAt(value, index);
+        m.record(constraint, index + Character.charCount(rejected), elapsed,
+                rejected);
+        return false;
+    }
+
+    /**
+     * set the metrics to record the validations by all {@link ConsistOfValidator}s.
+     * <p>
+     * Replacing the metrics does not release the resources of the previous one. Close it on shutdown if it holds any, for
+     * example by {@link JmxConsistOfMetrics#close()}.
+     * </p>
+     * @param metrics metrics. {@code null} to disable.
+     * @since 5.7.0
+     */
+    public static void setMetrics(ConsistOfMetrics metrics) {
+        ConsistOfValidator.metrics = metrics;
+    }
+
+    /**
+     * returns the metrics to record the validations.
+     * @return metrics. {@code null} if disabled.
+     * @since 5.7.0
+     */
+    public static ConsistOfMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * load the first {@link ConsistOfMetrics} registered as a service provider.
+     * @return metrics. {@code null} if no provider is registered.
+     */
+    private static ConsistOfMetrics loadMetrics() {
+        Iterator<ConsistOfMetrics> providers = ServiceLoader.load(
+                ConsistOfMetrics.class, ConsistOfValidator.class
+                        .getClassLoader()).iterator();
+        return providers.hasNext() ? providers.next() : null;
+    }
+
+    /**
+     * returns the name of the constraint.
+     * @param consistOf {@link ConsistOf} annotation
+     * @return fully qualified names of the {@link CodePoints} classes joined by {@code ","}, followed by
+     *         {@code ";groups=<groups>"} and {@code ";payload=<payload>"} if specified
+     */
+    private static String constraintName(ConsistOf consistOf) {
+        StringBuilder sb = new StringBuilder();
+        appendClassNames(sb, consistOf.value());
+        if (consistOf.groups().length > 0) {
+            appendClassNames(sb.append(";groups="), consistOf.groups());
+        }
+        if (consistOf.payload().length > 0) {
+            appendClassNames(sb.append(";payload="), consistOf.payload());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * append the fully qualified names of the given classes joined by {@code ","}.
+     * @param sb builder to append to
+     * @param classes classes
+     * @return the given builder
+     */
+    private static StringBuilder appendClassNames(StringBuilder sb,
+            Class<?>[] classes) {
+        for (int i = 0; i < classes.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(classes[i].getName());
+        }
+        return sb;
+    }
+
+    /**
+     * unite the cached instances of the given {@link CodePoints} classes.
+     * @param classes {@link CodePoints} classes to unite. must not be empty.
+     * @return united code points
+     */
+    private static CodePoints union(List<Class<? extends CodePoints>> classes) {
+        CodePoints united = CodePoints.of(classes.get(0));
+        for (int i = 1; i < classes.size(); i++) {
+            united = united.union(CodePoints.of(classes.get(i)));
+        }
+        return united;
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints.validator;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ConsistOfMetrics} which exposes the statistics of each constraint as a {@link ConsistOfStatisticsMXBean}.
+ * <p>
+ * The MXBean of a constraint is registered when the constraint is validated for the first time, with the object name
+ * {@code org.terasoluna.gfw.codepoints:type=ConsistOf,constraint="<constraint>"}. If the registration fails, for example
+ * because another instance has registered the same name, a warning is logged and the statistics are still recorded and
+ * available by {@link #getStatistics(String)}.
+ * </p>
+ * <p>
+ * The registered MXBeans are not unregistered automatically. The owner of this instance must call {@link #close()} on
+ * shutdown, for example when the web application is undeployed, so that the MXBeans do not pin the class loader and the next
+ * deployment can register its own MXBeans. Validations recorded after closing are ignored.
+ * </p>
+ *
+ * <pre>
+ * <code>JmxConsistOfMetrics metrics = new JmxConsistOfMetrics();
+ * ConsistOfValidator.setMetrics(metrics);
+ * // on shutdown
+ * ConsistOfValidator.setMetrics(null);
+ * metrics.close();</code>
+ * </pre>
+ * <p>
+ * When this class is defined as a Spring bean, {@link #close()} is called automatically as the destroy method.
+ * </p>
+ * @since 5.7.0
+ */
+public class JmxConsistOfMetrics implements ConsistOfMetrics, Closeable {
+
+    /**
+     * logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(
+            JmxConsistOfMetrics.class);
+
+    /**
+     * domain of the object names.
+     */
+    public static final String DOMAIN = "org.terasoluna.gfw.codepoints";
+
+    /**
+     * default number of the reported rejected code points.
+     */
+    public static final int DEFAULT_TOP_N = 10;
+
+    /**
+     * server to register the MXBeans.
+     */
+    private final MBeanServer server;
+
+    /**
+     * number of the reported rejected code points.
+     */
+    private final int topN;
+
+    /**
+     * statistics keyed by the constraint.
+     */
+    private final ConcurrentMap<String, ConsistOfStatistics> statistics = new ConcurrentHashMap<String, ConsistOfStatistics>();
+
+    /**
+     * object names of the MXBeans registered by this instance.
+     */
+    private final Set<ObjectName> registeredNames = ConcurrentHashMap
+            .newKeySet();
+
+    /**
+     * whether {@link #close()} has been called.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor to register the MXBeans to the platform MBean server and to report the top {@value #DEFAULT_TOP_N} rejected
+     * code points.
+     */
+    public JmxConsistOfMetrics() {
+        this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_TOP_N);
+    }
+
+    /**
+     * Constructor.
+     * @param server server to register the MXBeans
+     * @param topN number of the reported rejected code points
+     * @throws IllegalArgumentException if {@code topN} is not positive
+     */
+    public JmxConsistOfMetrics(MBeanServer server, int topN) {
+        if (topN <= 0) {
+            throw new IllegalArgumentException("topN must be greater than 0 (topN = "
+                    + topN + ")");
+        }
+        this.server = server;
+        this.topN = topN;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void record(String constraint, int scannedChars,
+            long elapsedNanos, int rejectedCodePoint) {
+        if (closed) {
+            return;
+        }
+        ConsistOfStatistics s = statistics.get(constraint);
+        if (s == null) {
+            s = register(constraint);
+        }
+        s.record(scannedChars, elapsedNanos, rejectedCodePoint);
+    }
+
+    /**
+     * returns the statistics of the given constraint.
+     * @param constraint name of the constraint
+     * @return statistics. {@code null} if the constraint has not been validated.
+     */
+    public ConsistOfStatisticsMXBean getStatistics(String constraint) {
+        return statistics.get(constraint);
+    }
+
+    /**
+     * unregister all MXBeans registered by this instance and stop recording. Calling this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (ObjectName name : registeredNames) {
+            unregister(name);
+        }
+        statistics.clear();
+    }
+
+    /**
+     * returns the object name of the MXBean of the given constraint.
+     * @param constraint name of the constraint
+     * @return object name
+     * @throws JMException if the name is malformed
+     */
+    public static ObjectName objectName(String constraint) throws JMException {
+        return new ObjectName(DOMAIN + ":type=ConsistOf,constraint="
+                + ObjectName.quote(constraint));
+    }
+
+    /**
+     * create the statistics of the given constraint and register its MXBean once.
+     * @param constraint name of the constraint
+     * @return statistics
+     */
+    private ConsistOfStatistics register(String constraint) {
+        ConsistOfStatistics created = new ConsistOfStatistics(constraint, topN);
+        ConsistOfStatistics existing = statistics.putIfAbsent(constraint,
+                created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            ObjectName name = objectName(constraint);
+            server.registerMBean(created, name);
+            registeredNames.add(name);
+            if (closed) {
+                // closed while registering
+                unregister(name);
+            }
+        } catch (JMException e) {
+            // metrics must not break validations
+            logger.warn("failed to register the MXBean of the constraint {}",
+                    constraint, e);
+        }
+        return created;
+    }
+
+    /**
+     * unregister the MXBean of the given name if it is registered by this instance.
+     * @param name object name
+     */
+    private void unregister(ObjectName name) {
+        if (!registeredNames.remove(name)) {
+            return;
+        }
+        try {
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+            logger.warn("failed to unregister the MXBean {}", name, e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CodePointTableTest {
+
+    @Test
+    public void testOf_contiguousCodePointsCollapseToRange() {
+        CodePointTable table = CodePointTable.of("ぁあぃいぅ", "アイウ", "abcz");
+
+        assertThat(table.toRanges(), is(new int[] { 'a', 'c', 'z', 'z', 'ぁ',
+                'ぅ', 'ア', 'ア', 'イ', 'イ', 'ウ', 'ウ' }));
+        assertThat(table.size(), is(12));
+        assertThat(table.rangeCount(), is(6));
+    }
+
+    @Test
+    public void testOfRanges_overlappedAndAdjacent() {
+        CodePointTable table = CodePointTable.ofRanges(new int[] { 0x3041,
+                0x3050, 0x0041, 0x005A, 0x3051, 0x3096, 0x3045, 0x3046 }, 4);
+
+        assertThat(table.toRanges(), is(new int[] { 0x0041, 0x005A, 0x3041,
+                0x3096 }));
+        assertThat(table.size(), is(26 + 86));
+    }
+
+    @Test
+    public void testOfRanges_invalidRange() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> CodePointTable.ofRanges(
+                        new int[] { 0x3096, 0x3041 }, 1));
+        assertThat(ex.getMessage(), is(
+                "invalid range (first = 12438, last = 12353)"));
+    }
+
+    @Test
+    public void testContains() {
+        CodePointTable table = CodePointTable.ofRanges(new int[] { 0x0041,
+                0x005A, 0xFFF0, 0x10010, 0x20000, 0x2A6DF }, 3);
+
+        assertThat(table.contains(0x0040), is(false));
+        assertThat(table.contains(0x0041), is(true));
+        assertThat(table.contains(0x005A), is(true));
+        assertThat(table.contains(0x005B), is(false));
+        assertThat(table.contains(0xFFFF), is(true));
+        assertThat(table.contains(0x10000), is(true));
+        assertThat(table.contains(0x10011), is(false));
+        assertThat(table.contains(0x20B9F), is(true));
+        assertThat(table.contains(0x2A6E0), is(false));
+        assertThat(table.contains(-1), is(false));
+    }
+
+    @Test
+    public void testUnion_coalesceAdjacentRanges() {
+        CodePointTable a = CodePointTable.ofRanges(new int[] { 0x0041, 0x0045,
+                0x0050, 0x0055 }, 2);
+        CodePointTable b = CodePointTable.ofRanges(new int[] { 0x0046, 0x004F,
+                0x0060, 0x0061 }, 2);
+
+        assertThat(a.union(b).toRanges(), is(new int[] { 0x0041, 0x0055,
+                0x0060, 0x0061 }));
+        assertThat(a.union(CodePointTable.EMPTY), sameInstance(a));
+        assertThat(CodePointTable.EMPTY.union(b), sameInstance(b));
+    }
+
+    @Test
+    public void testSubtract_splitRange() {
+        CodePointTable a = CodePointTable.ofRanges(new int[] { 0x0041, 0x005A,
+                0x3041, 0x3096 }, 2);
+        CodePointTable b = CodePointTable.ofRanges(new int[] { 0x0045, 0x0046,
+                0x0050, 0x3050 }, 2);
+
+        assertThat(a.subtract(b).toRanges(), is(new int[] { 0x0041, 0x0044,
+                0x0047, 0x004F, 0x3051, 0x3096 }));
+        assertThat(a.subtract(a), sameInstance(CodePointTable.EMPTY));
+    }
+
+    @Test
+    public void testIntersect() {
+        CodePointTable a = CodePointTable.ofRanges(new int[] { 0x0041, 0x005A,
+                0x3041, 0x3096 }, 2);
+        CodePointTable b = CodePointTable.ofRanges(new int[] { 0x0045, 0x0046,
+                0x0050, 0x3050 }, 2);
+
+        assertThat(a.intersect(b).toRanges(), is(new int[] { 0x0045, 0x0046,
+                0x0050, 0x005A, 0x3041, 0x3050 }));
+        assertThat(a.intersect(CodePointTable.EMPTY), sameInstance(
+                CodePointTable.EMPTY));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        Set<Integer> set = new HashSet<Integer>(Arrays.asList(0x0041, 0x0042,
+                0x0043, 0x2000B));
+        CodePointTable a = CodePointTable.of(set);
+        CodePointTable b = CodePointTable.ofRanges(new int[] { 0x2000B,
+                0x2000B, 0x0041, 0x0043 }, 2);
+
+        assertThat(a, is(b));
+        assertThat(a.hashCode(), is(set.hashCode()));
+        assertThat(b.toSet(), is(set));
+    }
+
+    @Test
+    public void testBmpWordsAndSupplementaryRanges() {
+        CodePointTable table = CodePointTable.ofRanges(new int[] { 0x0041,
+                0x0041, 0xFFFE, 0x10001 }, 2);
+
+        long[] words = table.bmpWords();
+        int[] supplementaryRanges = table.supplementaryRanges();
+
+        assertThat(words.length, is(1024));
+        assertThat(supplementaryRanges, is(new int[] { 0x10000, 0x10001 }));
+        assertThat(CodePointTable.of(words, supplementaryRanges, 1), is(table));
+    }
+
+    @Test
+    public void testIndexOfExcluded_latin1Runs() {
+        // 'a'-'z', U+00E9 and U+3042
+        CodePointTable table = CodePointTable.of("abcdefghijklmnopqrstuvwxyzéあ");
+
+        assertThat(table.indexOfExcluded("abcdefgh", 0, 8), is(-1));
+        assertThat(table.indexOfExcluded("abcdefgX", 0, 8), is(7));
+        assertThat(table.indexOfExcluded("abXdefgh", 0, 8), is(2));
+        assertThat(table.indexOfExcluded("abcdéfghあijkl", 0, 13), is(-1));
+        assertThat(table.indexOfExcluded("abcdあいjkl", 0, 9), is(5));
+        // U+00FF is Latin-1 but not included
+        assertThat(table.indexOfExcluded("abcdef\u00FFh", 0, 8), is(6));
+        // only the given range is checked
+        assertThat(table.indexOfExcluded("XabcdefX", 1, 7), is(-1));
+    }
+
+    @Test
+    public void testIndexOfExcluded_sameAsContains() {
+        CodePointTable table = CodePointTable.of("0123456789-.@abcdefghijklmnopqrstuvwxyzあいう",
+                new String(new int[] { 0x2000B }, 0, 1));
+        String alphabet = "0123456789-.@abcxyzABC \u00E9あいうえ\uD840\uDC0B\uD842\uDF9F";
+        Random random = new Random(0);
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(40);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            int expected = -1;
+            int codePoint;
+            for (int i = 0; i < sb.length(); i += Character.charCount(codePoint)) {
+                codePoint = Character.codePointAt(sb, i);
+                if (!table.contains(codePoint)) {
+                    expected = i;
+                    break;
+                }
+            }
+
+            assertThat(sb.toString(), table.indexOfExcluded(sb, 0, sb.length()),
+                    is(expected));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.terasoluna.gfw.common.fullhalf.DefaultFullHalf;
+
+public class CodePointsNormalizerTest {
+
+    private static final String SURROGATE_PAIR_CHAR_2000B = new String(new int[] {
+            0x2000B }, 0, 1);
+
+    private static final String SURROGATE_PAIR_CHAR_20B9F = new String(new int[] {
+            0x20B9F }, 0, 1);
+
+    private final CodePoints codePoints = new CodePoints("アイウカガタナ　",
+            SURROGATE_PAIR_CHAR_2000B);
+
+    @Test
+    public void testNormalize_toFullwidth() {
+        CodePointsNormalizer normalizer = codePoints.normalizer(
+                DefaultFullHalf.INSTANCE::toFullwidth);
+
+        CodePointsNormalizer.Result result = normalizer.normalize("ｶﾞ ｱｲｳ");
+        assertThat(result.getValue(), is("ガ　アイウ"));
+        assertThat(result.isValid(), is(true));
+        assertThat(result.getExcludedIndex(), is(-1));
+        assertThat(result.getExcludedCodePoint(), is(CodePoints.NOT_FOUND));
+
+        // the index is in the converted string
+        result = normalizer.normalize("ｶﾞｶﾞｷ");
+        assertThat(result.getValue(), is("ガガキ"));
+        assertThat(result.isValid(), is(false));
+        assertThat(result.getExcludedIndex(), is(2));
+        assertThat(result.getExcludedCodePoint(), is((int) 'キ'));
+    }
+
+    @Test
+    public void testNormalize_sameInstanceIfNotConverted() {
+        CodePointsNormalizer normalizer = codePoints.normalizer(
+                DefaultFullHalf.INSTANCE::toFullwidth);
+        String s = "アイウ" + SURROGATE_PAIR_CHAR_2000B;
+        String invalid = "アイウ漢";
+
+        assertThat(normalizer.normalize(s).getValue(), sameInstance(s));
+        assertThat(normalizer.normalize(s).isValid(), is(true));
+        assertThat(normalizer.normalize(invalid).getValue(), sameInstance(
+                invalid));
+        assertThat(normalizer.normalize(invalid).getExcludedIndex(), is(3));
+        assertThat(normalizer.normalize(null).getValue(), is(nullValue()));
+        assertThat(normalizer.normalize(null).isValid(), is(true));
+    }
+
+    @Test
+    public void testNormalize_surrogatePairSplitAcrossAppends() {
+        CodePointsNormalizer normalizer = codePoints.normalizer((source,
+                out) -> {
+            for (int i = 0; i < source.length(); i++) {
+                out.append(source.charAt(i));
+            }
+        });
+
+        assertThat(normalizer.normalize("ア" + SURROGATE_PAIR_CHAR_2000B)
+                .isValid(), is(true));
+        CodePointsNormalizer.Result result = normalizer.normalize("ア"
+                + SURROGATE_PAIR_CHAR_20B9F + "イ");
+        assertThat(result.getExcludedIndex(), is(1));
+        assertThat(result.getExcludedCodePoint(), is(0x20B9F));
+        // lone high surrogate at the end
+        assertThat(normalizer.normalize("ア\uD840").getExcludedIndex(), is(1));
+    }
+
+    @Test
+    public void testNormalizer_nullConversion() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> codePoints.normalizer(
+                        null));
+        assertThat(ex.getMessage(), is("conversion must not be null"));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.terasoluna.gfw.common.codepoints.catalog.ASCIIControlChars;
+import org.terasoluna.gfw.common.codepoints.catalog.ASCIIPrintableChars;
+import org.terasoluna.gfw.common.codepoints.catalog.CRLF;
+
+public class CodePointsRegistryTest {
+
+    @Test
+    public void testOf_instantiatedOnceUnderConcurrency() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<SlowCodePoints>> futures = new ArrayList<Future<SlowCodePoints>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return CodePoints.of(SlowCodePoints.class);
+                }));
+            }
+            start.countDown();
+
+            SlowCodePoints first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<SlowCodePoints> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS), sameInstance(
+                        first));
+            }
+            assertThat(SlowCodePoints.INSTANCES.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testOf_constructorUsesOtherCachedCodePoints() {
+        assertThat(CodePoints.of(Composite.class).containsAll("a\r\n"), is(
+                true));
+    }
+
+    @Test
+    public void testOf_circularInitialization() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> CodePoints.of(
+                        Circular.class));
+        assertThat(ex.getCause().getCause().getMessage(), is(
+                "circular initialization (class = " + Circular.class.getName()
+                        + ")"));
+    }
+
+    @Test
+    public void testOf_failureIsNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> CodePoints.of(
+                FailsOnce.class));
+
+        assertThat(CodePoints.of(FailsOnce.class).containsAll("x"), is(true));
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        CodePoints.warmUp(Arrays.<Class<? extends CodePoints>> asList(
+                WarmedUp.class)).get(10, TimeUnit.SECONDS);
+
+        assertThat(WarmedUp.INSTANCES.get(), is(1));
+        CodePoints.of(WarmedUp.class);
+        assertThat(WarmedUp.INSTANCES.get(), is(1));
+    }
+
+    @Test
+    public void testWarmUp_failure() throws Exception {
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                () -> CodePoints.warmUp(Arrays.<Class<? extends CodePoints>> asList(
+                        Circular.class, CRLF.class)).get(10, TimeUnit.SECONDS));
+
+        assertThat(ex.getCause() instanceof IllegalArgumentException, is(true));
+    }
+
+    @Test
+    public void testDiscoverCatalogs() {
+        List<Class<? extends CodePoints>> catalogs = CodePointsRegistry
+                .discoverCatalogs(getClass().getClassLoader());
+
+        assertThat(catalogs.containsAll(Arrays.asList(ASCIIControlChars.class,
+                ASCIIPrintableChars.class, CRLF.class)), is(true));
+    }
+
+    public static class SlowCodePoints extends CodePoints {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public SlowCodePoints() throws InterruptedException {
+            super("abc");
+            INSTANCES.incrementAndGet();
+            Thread.sleep(100);
+        }
+    }
+
+    public static class Composite extends CodePoints {
+        public Composite() {
+            super(CodePoints.of(ASCIIPrintableChars.class).union(CodePoints.of(
+                    CRLF.class)));
+        }
+    }
+
+    public static class Circular extends CodePoints {
+        public Circular() {
+            super(CodePoints.of(Circular.class));
+        }
+    }
+
+    public static class FailsOnce extends CodePoints {
+        static final AtomicInteger ATTEMPTS = new AtomicInteger();
+
+        public FailsOnce() {
+            super("x");
+            if (ATTEMPTS.getAndIncrement() == 0) {
+                throw new IllegalStateException("first attempt");
+            }
+        }
+    }
+
+    public static class WarmedUp extends CodePoints {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        public WarmedUp() {
+            super("w");
+            INSTANCES.incrementAndGet();
+        }
+    }
+}
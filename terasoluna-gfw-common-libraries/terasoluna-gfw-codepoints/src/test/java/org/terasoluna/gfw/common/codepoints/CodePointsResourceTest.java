@@ -0,0 +1,115 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CodePointsResourceTest {
+
+    @Test
+    public void testGenerateAndLoad() throws Exception {
+        // set up
+        Path source = Files.createTempDirectory("codepoints-source");
+        Path output = Files.createTempDirectory("codepoints-output");
+        Path dir = Files.createDirectories(source.resolve("foo"));
+        Files.write(dir.resolve("Bar.txt"), Arrays.asList("# comment", "",
+                "0x0041 # A", "0x3041-0x3043 # ぁ-ぃ", "0x2000B"),
+                StandardCharsets.UTF_8);
+
+        // run
+        List<Path> generated = CodePointsResourceGenerator.generate(source,
+                output);
+
+        // assert
+        assertThat(generated, is(Arrays.asList(output.resolve("foo").resolve(
+                "Bar.codepoints"))));
+        CodePointTable table = CodePointsResource.load(generated.get(0).toUri()
+                .toURL());
+        assertThat(table.toRanges(), is(new int[] { 0x0041, 0x0041, 0x3041,
+                0x3043, 0x2000B, 0x2000B }));
+    }
+
+    @Test
+    public void testGenerate_sourceDirectoryNotFound() throws Exception {
+        Path output = Files.createTempDirectory("codepoints-output");
+
+        assertThrows(NoSuchFileException.class,
+                () -> CodePointsResourceGenerator.generate(output.resolve(
+                        "notfound"), output));
+    }
+
+    @Test
+    public void testGenerate_invalidCodePoint() throws Exception {
+        Path source = Files.createTempDirectory("codepoints-source");
+        Path output = Files.createTempDirectory("codepoints-output");
+        Files.write(source.resolve("Invalid.txt"), Arrays.asList("0x0041",
+                "0xZZZZ"), StandardCharsets.UTF_8);
+
+        IOException ex = assertThrows(IOException.class,
+                () -> CodePointsResourceGenerator.generate(source, output));
+        assertThat(ex.getMessage().endsWith(":2 (0xZZZZ)"), is(true));
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        CodePointTable table = CodePointTable.of("abcあ", new String(new int[] {
+                0x2000B, 0x2000C, 0x20B9F }, 0, 3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CodePointsResource.write(table, out);
+
+        assertThat(CodePointsResource.read(ByteBuffer.wrap(out.toByteArray())),
+                is(table));
+    }
+
+    @Test
+    public void testRead_notResource() {
+        IOException ex = assertThrows(IOException.class,
+                () -> CodePointsResource.read(ByteBuffer.wrap(new byte[] { 0,
+                        1, 2, 3 })));
+        assertThat(ex.getMessage(), is("not a code points resource"));
+    }
+
+    @Test
+    public void testRead_truncated() {
+        IOException ex = assertThrows(IOException.class,
+                () -> CodePointsResource.read(ByteBuffer.allocate(4).putInt(0,
+                        CodePointsResource.MAGIC)));
+        assertThat(ex.getMessage(), is("code points resource is truncated"));
+    }
+
+    @Test
+    public void testLoad_notFound() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> CodePointsResource.load(CodePointsResourceTest.class));
+        assertThat(ex.getMessage(), is(
+                "code points resource not found (resource = CodePointsResourceTest.codepoints)"));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+import org.terasoluna.gfw.common.codepoints.catalog.ASCIIPrintableChars;
+
+public class CodePointsSanitizerTest {
+
+    private static final String SURROGATE_PAIR_CHAR_2000B = new String(new int[] {
+            0x2000B }, 0, 1);
+
+    private static final String SURROGATE_PAIR_CHAR_20B9F = new String(new int[] {
+            0x20B9F }, 0, 1);
+
+    private final CodePoints codePoints = new CodePoints("あいう",
+            SURROGATE_PAIR_CHAR_2000B);
+
+    @Test
+    public void testSanitize_replace() {
+        CodePointsSanitizer sanitizer = codePoints.sanitizer("〓");
+
+        assertThat(sanitizer.sanitize("aあbい" + SURROGATE_PAIR_CHAR_20B9F
+                + "う"), is("〓あ〓い〓う"));
+        assertThat(sanitizer.sanitize("あ" + SURROGATE_PAIR_CHAR_2000B + "\uD800"),
+                is("あ" + SURROGATE_PAIR_CHAR_2000B + "〓"));
+        assertThat(sanitizer.getReplacement(), is("〓"));
+    }
+
+    @Test
+    public void testSanitize_strip() {
+        CodePointsSanitizer sanitizer = CodePoints.of(ASCIIPrintableChars.class)
+                .sanitizer("");
+
+        assertThat(sanitizer.sanitize("a\tb\r\n"), is("ab"));
+    }
+
+    @Test
+    public void testSanitize_sameInstanceIfNotChanged() {
+        String s = "あい" + SURROGATE_PAIR_CHAR_2000B + "う";
+
+        assertThat(codePoints.sanitizer("?").sanitize(s), sameInstance(s));
+        assertThat(codePoints.sanitizer("?").sanitize(null), is(nullValue()));
+    }
+
+    @Test
+    public void testSanitize_appendable() throws Exception {
+        StringBuilder sb = new StringBuilder("x:");
+
+        int count = codePoints.sanitizer("?").sanitize(new StringBuilder(
+                "あaいbc"), sb);
+
+        assertThat(count, is(3));
+        assertThat(sb.toString(), is("x:あ?い??"));
+    }
+
+    @Test
+    public void testWriter() throws Exception {
+        StringWriter sw = new StringWriter();
+        char[] chars = ("aあ" + SURROGATE_PAIR_CHAR_2000B
+                + SURROGATE_PAIR_CHAR_20B9F).toCharArray();
+
+        try (Writer writer = codePoints.sanitizer("?").writer(sw)) {
+            // split surrogate pairs across writes
+            writer.write(chars, 0, 3);
+            writer.write(chars, 3, 2);
+            writer.write(chars[5]);
+            writer.write("いb", 0, 2);
+        }
+
+        assertThat(sw.toString(), is("?あ" + SURROGATE_PAIR_CHAR_2000B + "?い?"));
+    }
+
+    @Test
+    public void testWriter_pendingHighSurrogateOnClose() throws Exception {
+        StringWriter sw = new StringWriter();
+
+        try (Writer writer = codePoints.sanitizer("?").writer(sw)) {
+            writer.write("あ\uD840");
+        }
+
+        assertThat(sw.toString(), is("あ?"));
+    }
+
+    @Test
+    public void testSanitizer_nullReplacement() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> codePoints.sanitizer(
+                        null));
+        assertThat(ex.getMessage(), is("replacement must not be null"));
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CodePointsScannerTest {
+
+    private static final String SURROGATE_PAIR_CHAR_2000B = new String(new int[] {
+            0x2000B }, 0, 1);
+
+    private final CodePoints codePoints = new CodePoints("abcあいう",
+            SURROGATE_PAIR_CHAR_2000B);
+
+    @Test
+    public void testFirstViolation_reader() throws Exception {
+        CodePointViolation violation = codePoints.firstViolation(
+                new StringReader("abc\r\nあいxう\nd"));
+
+        assertThat(violation, is(new CodePointViolation('x', 2, 3, 7)));
+    }
+
+    @Test
+    public void testFirstViolation_allIncluded() throws Exception {
+        assertThat(codePoints.firstViolation(new StringReader("abc\nあいう\r"
+                + SURROGATE_PAIR_CHAR_2000B)), is(nullValue()));
+        assertThat(codePoints.firstViolation(new StringReader("")), is(
+                nullValue()));
+    }
+
+    @Test
+    public void testViolations_lineTerminators() throws Exception {
+        List<CodePointViolation> violations = codePoints.violations(
+                new StringReader("x\r\ny\rz\n\nw"), 10);
+
+        assertThat(violations, is(Arrays.asList(new CodePointViolation('x', 1,
+                1, 0), new CodePointViolation('y', 2, 1, 3),
+                new CodePointViolation('z', 3, 1, 5), new CodePointViolation(
+                        'w', 5, 1, 8))));
+    }
+
+    @Test
+    public void testViolations_maxViolations() throws Exception {
+        List<CodePointViolation> violations = codePoints.violations(
+                new StringReader("axbycz"), 2);
+
+        assertThat(violations, is(Arrays.asList(new CodePointViolation('x', 1,
+                2, 1), new CodePointViolation('y', 1, 4, 3))));
+    }
+
+    @Test
+    public void testViolations_illegalMaxViolations() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> codePoints.violations(
+                        new StringReader("a"), 0));
+        assertThat(ex.getMessage(), is(
+                "maxViolations must be greater than 0 (maxViolations = 0)"));
+    }
+
+    @Test
+    public void testViolations_surrogatePairAcrossReads() throws Exception {
+        String s = "a" + SURROGATE_PAIR_CHAR_2000B + "𠮟"
+                + SURROGATE_PAIR_CHAR_2000B + "b";
+
+        List<CodePointViolation> violations = codePoints.violations(
+                new OneCharReader(s), 10);
+
+        assertThat(violations, is(Collections.singletonList(
+                new CodePointViolation(0x20B9F, 1, 3, 3))));
+    }
+
+    @Test
+    public void testScan_surrogatePairAcrossChunks() {
+        CodePointsScanner scanner = codePoints.scanner(10);
+        char[] chars = "a𠮟x".toCharArray();
+
+        assertThat(scanner.scan(chars, 0, 2), is(true));
+        assertThat(scanner.scan(CharBuffer.wrap(chars, 2, 2)), is(true));
+
+        assertThat(scanner.finish(), is(Arrays.asList(new CodePointViolation(
+                0x20B9F, 1, 2, 1), new CodePointViolation('x', 1, 3, 3))));
+    }
+
+    @Test
+    public void testScan_unpairedSurrogates() {
+        CodePointsScanner scanner = codePoints.scanner(10);
+
+        scanner.scan(CharBuffer.wrap("\uDC00a\uD800"));
+
+        assertThat(scanner.finish(), is(Arrays.asList(new CodePointViolation(
+                0xDC00, 1, 1, 0), new CodePointViolation(0xD800, 1, 3, 2))));
+    }
+
+    @Test
+    public void testScan_randomChunks() {
+        // line terminators and surrogates are included so that runs do not stop at them by the table
+        CodePoints target = new CodePoints("ab\r\nあ\uD800",
+                SURROGATE_PAIR_CHAR_2000B);
+        char[] alphabet = ("abxあえ\r\n\uD800\uDC00" + SURROGATE_PAIR_CHAR_2000B)
+                .toCharArray();
+        Random random = new Random(0);
+        for (int n = 0; n < 500; n++) {
+            char[] chars = new char[random.nextInt(64)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            CodePointsScanner scanner = target.scanner(Integer.MAX_VALUE);
+            for (int off = 0; off < chars.length;) {
+                int len = Math.min(chars.length - off, random.nextInt(8));
+                if (random.nextBoolean()) {
+                    scanner.scan(chars, off, len);
+                } else {
+                    scanner.scan(CharBuffer.wrap(chars, off, len)
+                            .asReadOnlyBuffer());
+                }
+                off += len;
+            }
+
+            assertThat(new String(chars), scanner.finish(), is(violations(
+                    target, new String(chars))));
+        }
+    }
+
+    @Test
+    public void testScan_stopWhenFull() {
+        CodePointsScanner scanner = codePoints.scanner(1);
+        CharBuffer buffer = CharBuffer.wrap("axyz".toCharArray());
+
+        assertThat(scanner.scan(buffer), is(false));
+
+        assertThat(scanner.isFull(), is(true));
+        assertThat(buffer.position(), is(2));
+    }
+
+    @Test
+    public void testFirstViolation_charBuffer() {
+        CharBuffer buffer = CharBuffer.wrap("zabxc");
+        buffer.position(1);
+
+        CodePointViolation violation = codePoints.firstViolation(buffer);
+
+        assertThat(violation, is(new CodePointViolation('x', 1, 3, 2)));
+        assertThat(buffer.position(), is(1));
+    }
+
+    @Test
+    public void testFirstViolation_inputStream() throws Exception {
+        byte[] bytes = "あい\nうえ".getBytes("MS932");
+
+        CodePointViolation violation = codePoints.firstViolation(
+                new ByteArrayInputStream(bytes), Charset.forName("MS932"));
+
+        assertThat(violation, is(new CodePointViolation('え', 2, 2, 4)));
+    }
+
+    @Test
+    public void testFirstViolation_inputStream_malformed() {
+        byte[] bytes = new byte[] { 'a', (byte) 0xE3, (byte) 0x81 };
+
+        assertThrows(MalformedInputException.class, () -> codePoints
+                .firstViolation(new ByteArrayInputStream(bytes),
+                        StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(new CodePointViolation(0x2000B, 1, 2, 3).toString(), is(
+                "CodePointViolation [codePoint=U+2000B, line=1, column=2, offset=3]"));
+    }
+
+    /**
+     * find the violations char by char as reference.
+     */
+    private static List<CodePointViolation> violations(CodePoints target,
+            String s) {
+        List<CodePointViolation> violations = new ArrayList<CodePointViolation>();
+        long line = 1;
+        long column = 1;
+        boolean afterCarriageReturn = false;
+        for (int i = 0; i < s.length();) {
+            int cp = s.codePointAt(i);
+            if (cp == '\r' || cp == '\n') {
+                if (cp == '\r' || !afterCarriageReturn) {
+                    line++;
+                }
+                column = 1;
+                afterCarriageReturn = cp == '\r';
+            } else {
+                afterCarriageReturn = false;
+                if (!target.containsAll(new String(Character.toChars(cp)))) {
+                    violations.add(new CodePointViolation(cp, line, column, i));
+                }
+                column++;
+            }
+            i += Character.charCount(cp);
+        }
+        return violations;
+    }
+
+    /**
+     * reader which returns one char for each read.
+     */
+    private static class OneCharReader extends FilterReader {
+        OneCharReader(String s) {
+            super(new StringReader(s));
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, 1));
+        }
+    }
+}
@@ -16,11 +16,19 @@
 package org.terasoluna.gfw.common.codepoints;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertThrows;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -28,8 +36,10 @@ import java.util.Set;
 
 import org.junit.Test;
 import org.terasoluna.gfw.common.codepoints.catalog.ABCD;
+import org.terasoluna.gfw.common.codepoints.catalog.ASCIIPrintableChars;
 import org.terasoluna.gfw.common.codepoints.catalog.AbstractCodePoints;
 import org.terasoluna.gfw.common.codepoints.catalog.IllegalCodePoints;
+import org.terasoluna.gfw.common.codepoints.catalog.WXYZ;
 
 public class CodePointsTest {
 
@@ -647,6 +657,72 @@ public class CodePointsTest {
         assertThat(it.next().intValue(), is(0x20B9F));
     }
 
+    @Test
+    public void testFirstExcludedIndex() {
+        CodePoints cp = new CodePoints("ab", SURROGATE_PAIR_CHAR_2000B);
+
+        assertThat(cp.firstExcludedIndex(null), is(-1));
+        assertThat(cp.firstExcludedIndex(""), is(-1));
+        assertThat(cp.firstExcludedIndex("ab" + SURROGATE_PAIR_CHAR_2000B), is(
+                -1));
+        assertThat(cp.firstExcludedIndex(new StringBuilder("a").append(
+                SURROGATE_PAIR_CHAR_2000B).append("bcd")), is(4));
+    }
+
+    @Test
+    public void testForEachExcludedCodePoint() {
+        CodePoints cp = new CodePoints("ab");
+        List<int[]> reported = new ArrayList<int[]>();
+
+        int count = cp.forEachExcludedCodePoint("ac" + SURROGATE_PARE_CHAR_20B9F
+                + "bc", (codePoint, index) -> reported.add(new int[] {
+                        codePoint, index }));
+
+        assertThat(count, is(3));
+        assertThat(reported.size(), is(3));
+        assertThat(reported.get(0), is(new int[] { 0x0063, 1 }));
+        assertThat(reported.get(1), is(new int[] { 0x20B9F, 2 }));
+        assertThat(reported.get(2), is(new int[] { 0x0063, 5 }));
+    }
+
+    @Test
+    public void testForEachExcludedCodePoint_stop() {
+        CodePoints cp = new CodePoints("ab");
+        List<int[]> reported = new ArrayList<int[]>();
+
+        int count = cp.forEachExcludedCodePoint("acdb", (codePoint,
+                index) -> !reported.add(new int[] { codePoint, index }));
+
+        assertThat(count, is(1));
+        assertThat(reported.get(0), is(new int[] { 0x0063, 1 }));
+        assertThat(cp.forEachExcludedCodePoint(null, (codePoint,
+                index) -> true), is(0));
+    }
+
+    @Test
+    public void testContainsAllInAnyCodePoints() {
+        CodePoints ab = new CodePoints("ab");
+        CodePoints cd = new CodePoints("cd");
+
+        assertThat(CodePoints.containsAllInAnyCodePoints("abcd", ab, cd), is(
+                true));
+        assertThat(CodePoints.containsAllInAnyCodePoints("dcba", ab, cd), is(
+                true));
+        assertThat(CodePoints.containsAllInAnyCodePoints("abcde", ab, cd), is(
+                false));
+        assertThat(CodePoints.containsAllInAnyCodePoints(null, ab, cd), is(
+                true));
+        assertThat(CodePoints.containsAllInAnyCodePoints("", ab, cd), is(
+                true));
+    }
+
+    @Test
+    public void testContainsAllInAnyCodePoints_emptyList() {
+        assertThat(CodePoints.containsAllInAnyCodePoints("abcde"), is(true));
+        assertThat(CodePoints.containsAllInAnyCodePoints("abcde",
+                new CodePoints[0]), is(true));
+    }
+
     @Test
     public void testOf_caches_are_same_instance() {
         ABCD cp1 = CodePoints.of(ABCD.class);
@@ -714,4 +790,142 @@ public class CodePointsTest {
         // assert
         assertThat(cp1.hashCode(), is(cp2.hashCode()));
     }
+
+    @Test
+    public void testHashCode_same_as_set() {
+        // set up
+        Set<Integer> set = new HashSet<Integer>(Arrays.asList(0x0041, 0x3042,
+                0x2000B, 0x20B9F));
+        CodePoints cp = new CodePoints(set);
+
+        // assert
+        assertThat(cp.hashCode(), is(set.hashCode()));
+    }
+
+    @Test
+    public void testSupplementaryCodePoints() {
+        CodePoints cp = new CodePoints(SURROGATE_PAIR_CHAR_2000B, "あ");
+
+        assertThat(cp.containsAll(SURROGATE_PAIR_CHAR_2000B + "あ"), is(true));
+        assertThat(cp.firstExcludedCodePoint("あ" + SURROGATE_PARE_CHAR_20B9F),
+                is(0x20B9F));
+        assertThat(cp.union(new CodePoints(SURROGATE_PARE_CHAR_20B9F))
+                .containsAll(SURROGATE_PAIR_CHAR_2000B
+                        + SURROGATE_PARE_CHAR_20B9F), is(true));
+        assertThat(cp.subtract(new CodePoints(SURROGATE_PAIR_CHAR_2000B))
+                .containsAll(SURROGATE_PAIR_CHAR_2000B), is(false));
+        assertThat(cp.intersect(new CodePoints(SURROGATE_PAIR_CHAR_2000B)),
+                is(new CodePoints(SURROGATE_PAIR_CHAR_2000B)));
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        // set up
+        CodePoints cp = new CodePoints("あいう" + SURROGATE_PAIR_CHAR_2000B);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(cp);
+        }
+
+        // run
+        CodePoints deserialized;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes
+                .toByteArray()))) {
+            deserialized = (CodePoints) in.readObject();
+        }
+
+        // assert
+        assertThat(deserialized, is(cp));
+        assertThat(deserialized.hashCode(), is(cp.hashCode()));
+        assertThat(deserialized.containsAll("あい"), is(true));
+        assertThat(deserialized.containsAll("え"), is(false));
+    }
+
+    @Test
+    public void testSerialize_compact() throws Exception {
+        CodePoints cp = new CodePoints(CodePoints.of(ASCIIPrintableChars.class)
+                .union(new CodePoints("ぁあぃいぅうぇえぉおかがきぎくぐけげこご")));
+
+        byte[] bytes = serialize(cp);
+
+        assertThat(bytes.length < 400, is(true));
+        assertThat(deserialize(bytes), is(cp));
+    }
+
+    @Test
+    public void testSerialize_catalogResolvesToCachedInstance() throws Exception {
+        CodePoints cached = CodePoints.of(ABCD.class);
+
+        assertThat(deserialize(serialize(cached)), sameInstance(cached));
+        assertThat(deserialize(serialize(new ABCD())), sameInstance(cached));
+    }
+
+    @Test
+    public void testSerialize_notCachedClassIsWrittenAsIs() throws Exception {
+        WXYZ cp = new WXYZ();
+
+        CodePoints deserialized = (CodePoints) deserialize(serialize(cp));
+
+        assertThat(deserialized, is(cp));
+        assertThat(deserialized, is(not(sameInstance(cp))));
+        assertThat(CodePointsRegistry.find(WXYZ.class), is(nullValue()));
+    }
+
+    @Test
+    public void testSerialize_formerVersion() throws Exception {
+        // new CodePoints("abc") serialized as Set<Integer> by 5.6.x
+        byte[] bytes = Base64.getDecoder().decode(
+                "rO0ABXNyAC9vcmcudGVyYXNvbHVuYS5nZncuY29tbW9uLmNvZGVwb2ludHMuQ29kZVBvaW50cwAAAAAAAAABAgABTAADc2V0dAAPTGphdmEvdXRpbC9TZXQ7eHBzcgAlamF2YS51dGlsLkNvbGxlY3Rpb25zJFVubW9kaWZpYWJsZVNldIAdktGPm4BVAgAAeHIALGphdmEudXRpbC5Db2xsZWN0aW9ucyRVbm1vZGlmaWFibGVDb2xsZWN0aW9uGUIAgMte9x4CAAFMAAFjdAAWTGphdmEvdXRpbC9Db2xsZWN0aW9uO3hwc3IAEWphdmEudXRpbC5IYXNoU2V0ukSFlZa4tzQDAAB4cHcMAAAAED9AAAAAAAADc3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4cAAAAGFzcQB+AAkAAABic3EAfgAJAAAAY3g=");
+
+        assertThat(deserialize(bytes), is(new CodePoints("abc")));
+    }
+
+    @Test
+    public void testFirstExcludedIndex_parallel() {
+        CodePoints cp = new CodePoints("ab", SURROGATE_PAIR_CHAR_2000B);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append("ab");
+        }
+        String s = sb.toString();
+
+        assertThat(cp.firstExcludedIndex(s, 1), is(-1));
+        assertThat(cp.firstExcludedIndex(s + "c", 1), is(s.length()));
+        // the lowest index is returned even if chunks after it have violations
+        sb.setCharAt(150001, 'x');
+        sb.setCharAt(30001, 'y');
+        sb.setCharAt(190001, 'z');
+        assertThat(cp.firstExcludedIndex(sb, 1), is(30001));
+        assertThat(cp.firstExcludedIndex(sb, 0), is(30001));
+    }
+
+    @Test
+    public void testFirstExcludedIndex_parallelSurrogatePairs() {
+        CodePoints cp = new CodePoints("a", SURROGATE_PAIR_CHAR_2000B);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append(SURROGATE_PAIR_CHAR_2000B);
+        }
+        // shift the pairs so that the splitting points fall between the surrogates
+        String s = "a" + sb;
+
+        assertThat(cp.firstExcludedIndex(sb, 1), is(-1));
+        assertThat(cp.firstExcludedIndex(s, 1), is(-1));
+        assertThat(cp.firstExcludedCodePoint(s + "\uD840"), is(0xD840));
+        assertThat(cp.firstExcludedIndex(sb.append('\uD840'), 1), is(200000));
+    }
+
+    private static byte[] serialize(Object o) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
 }
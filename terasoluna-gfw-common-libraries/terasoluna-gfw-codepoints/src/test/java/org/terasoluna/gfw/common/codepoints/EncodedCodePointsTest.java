@@ -0,0 +1,118 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class EncodedCodePointsTest {
+
+    private static final String SURROGATE_PAIR_CHAR_2000B = new String(new int[] {
+            0x2000B }, 0, 1);
+
+    private final CodePoints codePoints = new CodePoints("abcあいう亜ｱ",
+            SURROGATE_PAIR_CHAR_2000B);
+
+    @Test
+    public void testUtf8() {
+        EncodedCodePoints encoded = codePoints.encoded(StandardCharsets.UTF_8);
+
+        assertThat(encoded.getCharset(), is(StandardCharsets.UTF_8));
+        assertThat(encoded.containsAll(("abあ亜ｱ" + SURROGATE_PAIR_CHAR_2000B)
+                .getBytes(StandardCharsets.UTF_8)), is(true));
+        byte[] bytes = "aあxい".getBytes(StandardCharsets.UTF_8);
+        assertThat(encoded.containsAll(bytes), is(false));
+        assertThat(encoded.firstExcludedIndex(bytes, 0, bytes.length), is(4));
+        assertThat(encoded.firstExcludedIndex(bytes, 0, 4), is(-1));
+    }
+
+    @Test
+    public void testUtf8_malformed() {
+        EncodedCodePoints encoded = new CodePoints(0x0041, 0x00E9, 0xD800)
+                .encoded(StandardCharsets.UTF_8);
+
+        // overlong form of 'A'
+        assertThat(encoded.containsAll(new byte[] { (byte) 0xC1,
+                (byte) 0x81 }), is(false));
+        // encoded surrogate
+        assertThat(encoded.containsAll(new byte[] { (byte) 0xED, (byte) 0xA0,
+                (byte) 0x80 }), is(false));
+        // truncated
+        assertThat(encoded.firstExcludedIndex(new byte[] { 0x41,
+                (byte) 0xC3 }, 0, 2), is(1));
+        // invalid continuation byte
+        assertThat(encoded.firstExcludedIndex(new byte[] { (byte) 0xC3, 0x41 },
+                0, 2), is(0));
+        assertThat(encoded.containsAll(new byte[] { 0x41, (byte) 0xC3,
+                (byte) 0xA9 }), is(true));
+    }
+
+    @Test
+    public void testWindows31j() {
+        Charset charset = Charset.forName("windows-31j");
+        EncodedCodePoints encoded = codePoints.encoded(charset);
+
+        assertThat(encoded.containsAll("abあ亜ｱ".getBytes(charset)), is(true));
+        byte[] bytes = "aｱ唖あ".getBytes(charset);
+        assertThat(encoded.firstExcludedIndex(bytes, 0, bytes.length), is(2));
+        // truncated 2 bytes character
+        assertThat(encoded.firstExcludedIndex(bytes, 0, 3), is(2));
+        // 0x82 0x20 is malformed
+        assertThat(encoded.containsAll(new byte[] { (byte) 0x82, 0x20 }), is(
+                false));
+    }
+
+    @Test
+    public void testEucJp() {
+        Charset charset = Charset.forName("EUC-JP");
+        EncodedCodePoints encoded = new CodePoints("abあ亜ｱ丂").encoded(charset);
+
+        // ｱ is 0x8E 0xB1 and 丂 (JIS X 0212) is 0x8F 0xB0 0xA1
+        assertThat(encoded.containsAll("abあ亜ｱ丂".getBytes(charset)), is(true));
+        byte[] bytes = "aｱ丂唖".getBytes(charset);
+        assertThat(encoded.firstExcludedIndex(bytes, 0, bytes.length), is(6));
+        assertThat(encoded.firstExcludedIndex(bytes, 0, 5), is(3));
+    }
+
+    @Test
+    public void testContainsAll_null() {
+        assertThat(codePoints.encoded(StandardCharsets.UTF_8).containsAll(null),
+                is(true));
+    }
+
+    @Test
+    public void testFirstExcludedIndex_outOfBounds() {
+        EncodedCodePoints encoded = codePoints.encoded(StandardCharsets.UTF_8);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> encoded
+                .firstExcludedIndex(new byte[2], 1, 2));
+    }
+
+    @Test
+    public void testUnsupportedCharset() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> codePoints.encoded(
+                        StandardCharsets.UTF_16));
+        assertThat(ex.getMessage(), is(
+                "unsupported charset (charset = UTF-16)"));
+    }
+}
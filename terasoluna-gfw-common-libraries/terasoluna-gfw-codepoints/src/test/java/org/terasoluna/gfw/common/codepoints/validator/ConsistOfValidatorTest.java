@@ -34,6 +34,7 @@ import javax.validation.Validation;
 import javax.validation.Validator;
 
 import org.junit.Test;
+import org.terasoluna.gfw.common.codepoints.CodePoints;
 
 public class ConsistOfValidatorTest {
 
@@ -53,6 +54,18 @@ public class ConsistOfValidatorTest {
         assertThat(violations.size(), is(0));
     }
 
+    @Test
+    public void testIsValid_no_codepoints() throws Exception {
+        Name_Empty name = new Name_Empty("abc");
+        Validator validator = Validation.buildDefaultValidatorFactory()
+                .getValidator();
+        Set<ConstraintViolation<Name_Empty>> violations = validator.validate(
+                name);
+
+        assertThat(violations, is(notNullValue()));
+        assertThat(violations.size(), is(0));
+    }
+
     @Test
     public void testIsValid_all_null() throws Exception {
         Name_Simple name = new Name_Simple();
@@ -413,4 +426,26 @@ public class ConsistOfValidatorTest {
 
     }
 
+    @Test
+    public void testIsValid_metrics() throws Exception {
+        List<String> records = new ArrayList<String>();
+        ConsistOfValidator.setMetrics((constraint, scannedChars,
+                elapsedNanos, rejectedCodePoint) -> records.add(constraint + ":"
+                        + scannedChars + ":" + rejectedCodePoint));
+        try {
+            Name_Simple name = new Name_Simple("ABxC", "GHI");
+            Validator validator = Validation.buildDefaultValidatorFactory()
+                    .getValidator();
+
+            validator.validate(name);
+        } finally {
+            ConsistOfValidator.setMetrics(null);
+        }
+
+        Collections.sort(records);
+        assertThat(records, is(Arrays.asList(AtoF.class.getName() + ":3:"
+                + (int) 'x', GtoL.class.getName() + ":3:"
+                        + CodePoints.NOT_FOUND)));
+    }
+
 }
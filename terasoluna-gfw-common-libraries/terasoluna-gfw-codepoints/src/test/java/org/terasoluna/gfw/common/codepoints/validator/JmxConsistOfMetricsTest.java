@@ -0,0 +1,203 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.codepoints.validator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.terasoluna.gfw.common.codepoints.CodePoints;
+
+public class JmxConsistOfMetricsTest {
+
+    private final MBeanServer server = MBeanServerFactory.newMBeanServer();
+
+    @Test
+    public void testRecord() throws Exception {
+        JmxConsistOfMetrics metrics = new JmxConsistOfMetrics(server, 10);
+
+        metrics.record("AtoF", 3, 100, CodePoints.NOT_FOUND);
+        metrics.record("AtoF", 2, 50, 'x');
+        metrics.record("GtoL", 1, 10, 'y');
+
+        ConsistOfStatisticsMXBean statistics = metrics.getStatistics("AtoF");
+        assertThat(statistics.getConstraint(), is("AtoF"));
+        assertThat(statistics.getValidations(), is(2L));
+        assertThat(statistics.getRejections(), is(1L));
+        assertThat(statistics.getScannedChars(), is(5L));
+        assertThat(statistics.getTotalTimeNanos(), is(150L));
+        assertThat(metrics.getStatistics("JIS_X_0208_Kanji"), is(nullValue()));
+
+        ObjectName name = JmxConsistOfMetrics.objectName("AtoF");
+        assertThat(name.toString(), is(
+                "org.terasoluna.gfw.codepoints:type=ConsistOf,constraint=\"AtoF\""));
+        assertThat(server.getAttribute(name, "Validations"), is(2L));
+        assertThat(server.getAttribute(name, "Rejections"), is(1L));
+        assertThat(server.isRegistered(JmxConsistOfMetrics.objectName(
+                "GtoL")), is(true));
+    }
+
+    @Test
+    public void testTopRejectedCodePoints() {
+        JmxConsistOfMetrics metrics = new JmxConsistOfMetrics(server, 2);
+        for (int i = 0; i < 5; i++) {
+            metrics.record("AtoF", 1, 1, 0x1F600);
+        }
+        for (int i = 0; i < 3; i++) {
+            metrics.record("AtoF", 1, 1, 'x');
+        }
+        // more code points than tracked
+        for (int cp = 0x3041; cp < 0x304B; cp++) {
+            metrics.record("AtoF", 1, 1, cp);
+        }
+
+        Map<String, Long> expected = new LinkedHashMap<String, Long>();
+        expected.put("U+1F600", 5L);
+        expected.put("U+0078", 3L);
+        assertThat(metrics.getStatistics("AtoF").getTopRejectedCodePoints(),
+                is(expected));
+    }
+
+    @Test
+    public void testTopRejectedCodePoints_exactWithinTrackingCapacity() {
+        JmxConsistOfMetrics metrics = new JmxConsistOfMetrics(server, 5);
+        Map<Integer, Long> expected = new HashMap<Integer, Long>();
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            // 20 distinct code points are tracked exactly with topN = 5
+            int cp = 0x3041 + (int) Math.sqrt(random.nextInt(400));
+            metrics.record("AtoF", 1, 1, cp);
+            expected.merge(cp, 1L, Long::sum);
+        }
+
+        Map<String, Long> top = metrics.getStatistics("AtoF")
+                .getTopRejectedCodePoints();
+
+        assertThat(top.size(), is(5));
+        long previous = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+            int cp = Integer.parseInt(entry.getKey().substring(2), 16);
+            assertThat(entry.getValue(), is(expected.get(cp)));
+            assertThat(entry.getValue() <= previous, is(true));
+            previous = entry.getValue();
+        }
+        assertThat(top.containsKey("U+3054"), is(true));
+    }
+
+    @Test
+    public void testTopRejectedCodePoints_heavyHittersAmongManyCodePoints() {
+        JmxConsistOfMetrics metrics = new JmxConsistOfMetrics(server, 2);
+        for (int i = 0; i < 1000; i++) {
+            metrics.record("AtoF", 1, 1, 0x1F600);
+            metrics.record("AtoF", 1, 1, 0x1F600 + 1 + i);
+            if (i % 2 == 0) {
+                metrics.record("AtoF", 1, 1, 'x');
+            }
+        }
+
+        Map<String, Long> top = metrics.getStatistics("AtoF")
+                .getTopRejectedCodePoints();
+
+        assertThat(top.keySet().toArray(), is(new Object[] { "U+1F600",
+                "U+0078" }));
+        assertThat(top.get("U+1F600") >= 1000L, is(true));
+        assertThat(top.get("U+0078") >= 500L, is(true));
+    }
+
+    @Test
+    public void testRecord_registrationFailure() throws Exception {
+        new JmxConsistOfMetrics(server, 10).record("AtoF", 1, 1,
+                CodePoints.NOT_FOUND);
+        JmxConsistOfMetrics metrics = new JmxConsistOfMetrics(server, 10);
+
+        metrics.record("AtoF", 2, 50, 'x');
+        metrics.record("AtoF", 2, 50, 'x');
+
+        assertThat(metrics.getStatistics("AtoF").getValidations(), is(2L));
+        assertThat(server.getAttribute(JmxConsistOfMetrics.objectName("AtoF"),
+                "Validations"), is(1L));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        JmxConsistOfMetrics metrics = new JmxConsistOfMetrics(server, 10);
+        metrics.record("AtoF", 2, 50, 'x');
+        metrics.record("GtoL", 2, 50, CodePoints.NOT_FOUND);
+
+        metrics.close();
+
+        assertThat(server.isRegistered(JmxConsistOfMetrics.objectName(
+                "AtoF")), is(false));
+        assertThat(server.isRegistered(JmxConsistOfMetrics.objectName(
+                "GtoL")), is(false));
+        metrics.record("AtoF", 2, 50, 'x');
+        assertThat(metrics.getStatistics("AtoF"), is(nullValue()));
+        assertThat(server.isRegistered(JmxConsistOfMetrics.objectName(
+                "AtoF")), is(false));
+        // closing twice has no effect
+        metrics.close();
+
+        // the name can be registered by the next instance
+        JmxConsistOfMetrics next = new JmxConsistOfMetrics(server, 10);
+        next.record("AtoF", 1, 1, 'x');
+        assertThat(server.getAttribute(JmxConsistOfMetrics.objectName("AtoF"),
+                "Validations"), is(1L));
+    }
+
+    @Test
+    public void testClose_keepsNotOwnedMXBean() throws Exception {
+        JmxConsistOfMetrics owner = new JmxConsistOfMetrics(server, 10);
+        owner.record("AtoF", 1, 1, 'x');
+        JmxConsistOfMetrics other = new JmxConsistOfMetrics(server, 10);
+        // registration fails since the name is used by the owner
+        other.record("AtoF", 1, 1, 'x');
+
+        other.close();
+
+        assertThat(server.isRegistered(JmxConsistOfMetrics.objectName(
+                "AtoF")), is(true));
+    }
+
+    @Test
+    public void testReset() {
+        JmxConsistOfMetrics metrics = new JmxConsistOfMetrics(server, 10);
+        metrics.record("AtoF", 2, 50, 'x');
+
+        ConsistOfStatisticsMXBean statistics = metrics.getStatistics("AtoF");
+        statistics.reset();
+
+        assertThat(statistics.getValidations(), is(0L));
+        assertThat(statistics.getTopRejectedCodePoints().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testIllegalTopN() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> new JmxConsistOfMetrics(server, 0));
+        assertThat(ex.getMessage(), is("topN must be greater than 0 (topN = 0)"));
+    }
+}
@@ -15,27 +15,78 @@
  */
 package org.terasoluna.gfw.common.query;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * An object to escape like condition in a query.<br>
+ * <p>
+ * The characters to escape are compiled into a bit table for Latin-1 characters and a sorted array for the others such as
+ * full-width wildcards, so that each character is checked by one lookup. Runs of characters which need no escape are
+ * copied at once, and a condition which contains no character to escape is returned as it is (decorated with "%" if
+ * requested).
+ * </p>
+ * <p>
+ * The escape character and the special characters depend on the database. Use {@link #of(Dialect, boolean)} to create an
+ * instance for a {@link Dialect}.
+ * </p>
  * @since 1.0.2
  */
 public class LikeConditionEscape {
-    /**
-     * whether to escape full-width wildcards.
-     */
-    private final boolean escapeFullWithWildcards;
 
     /**
      * Escape character used in the pattern string of LIKE value. Escape character is '~'.
      */
     public static final char LIKE_ESC_CHAR = '~';
 
+    /**
+     * characters to escape whose code is less than {@link #LATIN1_LIMIT}, as a bit table.
+     */
+    private final long[] latin1 = new long[4];
+
+    /**
+     * sorted characters to escape whose code is greater than or equal to {@link #LATIN1_LIMIT}.
+     */
+    private final char[] others;
+
+    /**
+     * escape character.
+     */
+    private final char escapeChar;
+
+    /**
+     * upper limit (exclusive) of the characters held in {@link #latin1}.
+     */
+    private static final int LATIN1_LIMIT = 0x100;
+
     /**
      * Constructor
+     * @param escapeChar escape character
      * @param escapeFullWithWildcards whether to escape full-width wildcards.
+     * @param specialChars characters to escape in addition to the escape character and the wildcards
      */
-    private LikeConditionEscape(boolean escapeFullWithWildcards) {
-        this.escapeFullWithWildcards = escapeFullWithWildcards;
+    private LikeConditionEscape(char escapeChar,
+            boolean escapeFullWithWildcards, String specialChars) {
+        StringBuilder chars = new StringBuilder().append(escapeChar).append(
+                "%_").append(specialChars);
+        if (escapeFullWithWildcards) {
+            chars.append("％＿");
+        }
+        StringBuilder others = new StringBuilder();
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c < LATIN1_LIMIT) {
+                latin1[c >>> 6] |= 1L << c;
+            } else if (others.indexOf(String.valueOf(c)) < 0) {
+                others.append(c);
+            }
+        }
+        this.others = others.toString().toCharArray();
+        Arrays.sort(this.others);
+        this.escapeChar = escapeChar;
     }
 
     /**
@@ -43,7 +94,7 @@ public class LikeConditionEscape {
      * @return LikeConditionEscape instance for including full-with wildcards
      */
     public static LikeConditionEscape withFullWidthWildcardsEscape() {
-        return new LikeConditionEscape(true);
+        return new LikeConditionEscape(LIKE_ESC_CHAR, true, "");
     }
 
     /**
@@ -52,7 +103,52 @@ public class LikeConditionEscape {
      * @return LikeConditionEscape instance for excluding full-with wildcards
      */
     public static LikeConditionEscape withoutFullWidthWildcardsEscape() {
-        return new LikeConditionEscape(false);
+        return new LikeConditionEscape(LIKE_ESC_CHAR, false, "");
+    }
+
+    /**
+     * Create an instance to escape like condition for the given dialect.
+     * @param dialect dialect of the database
+     * @param escapeFullWithWildcards whether to escape full-width wildcards.
+     * @return LikeConditionEscape instance for the dialect
+     * @throws IllegalArgumentException if dialect is null
+     * @since 5.7.0
+     */
+    public static LikeConditionEscape of(Dialect dialect,
+            boolean escapeFullWithWildcards) {
+        if (dialect == null) {
+            throw new IllegalArgumentException("dialect must not be null.");
+        }
+        return new LikeConditionEscape(dialect.escapeChar,
+                escapeFullWithWildcards, dialect.specialChars);
+    }
+
+    /**
+     * Create an instance to escape like condition with the given escape character. The escape character, '%', '_' and the
+     * given special characters are escaped.
+     * @param escapeChar escape character, which must be specified in the ESCAPE clause of the query
+     * @param escapeFullWithWildcards whether to escape full-width wildcards.
+     * @param specialChars characters to escape in addition, such as "[" for SQL Server. must not be null.
+     * @return LikeConditionEscape instance for the escape character
+     * @throws IllegalArgumentException if specialChars is null
+     * @since 5.7.0
+     */
+    public static LikeConditionEscape of(char escapeChar,
+            boolean escapeFullWithWildcards, String specialChars) {
+        if (specialChars == null) {
+            throw new IllegalArgumentException("specialChars must not be null.");
+        }
+        return new LikeConditionEscape(escapeChar,
+                escapeFullWithWildcards, specialChars);
+    }
+
+    /**
+     * Returns the escape character.
+     * @return escape character
+     * @since 5.7.0
+     */
+    public char getEscapeChar() {
+        return escapeChar;
     }
 
     /**
@@ -66,8 +162,14 @@ public class LikeConditionEscape {
      * <li>Escape {@link #LIKE_ESC_CHAR} using {@link #LIKE_ESC_CHAR}.</li>
      * <li>Escape '%' and '_' using {@link #LIKE_ESC_CHAR}.</li>
      * <li>Escape '％' and '＿' using {@link #LIKE_ESC_CHAR} if <code>escapeFullWithWildcards</code> is <code>true</code>.</li>
+     * <li>Escape the special characters of the dialect such as '[' using the escape character if the instance is created for
+     * the dialect.</li>
      * </ol>
      * <p>
+     * {@link #LIKE_ESC_CHAR} above is replaced with {@link #getEscapeChar()} if the instance is created with another escape
+     * character.
+     * </p>
+     * <p>
      * For example.<br>
      *
      * <pre>
@@ -106,17 +208,8 @@ public class LikeConditionEscape {
         if (condition == null) {
             return storingLikeCondition;
         }
-        for (int i = 0; i < condition.length(); i++) {
-            char c = condition.charAt(i);
-            if (c == LIKE_ESC_CHAR) {
-                storingLikeCondition.append(LIKE_ESC_CHAR);
-            } else if (c == '%' || c == '_') {
-                storingLikeCondition.append(LIKE_ESC_CHAR);
-            } else if (escapeFullWithWildcards && (c == '＿' || c == '％')) {
-                storingLikeCondition.append(LIKE_ESC_CHAR);
-            }
-            storingLikeCondition.append(c);
-        }
+        appendEscaped(condition, indexOfSpecial(condition, 0),
+                storingLikeCondition);
         return storingLikeCondition;
     }
 
@@ -133,10 +226,7 @@ public class LikeConditionEscape {
      * @return converted search criteria string.
      */
     public String toLikeCondition(String condition) {
-        if (condition == null) {
-            return null;
-        }
-        return toLikeCondition(condition, new StringBuilder()).toString();
+        return decorate(condition, false, false);
     }
 
     /**
@@ -152,11 +242,7 @@ public class LikeConditionEscape {
      * @return converted search criteria string.
      */
     public String toStartingWithCondition(String condition) {
-        if (condition == null) {
-            return null;
-        }
-        return toLikeCondition(condition, new StringBuilder()).append("%")
-                .toString();
+        return decorate(condition, false, true);
     }
 
     /**
@@ -172,10 +258,7 @@ public class LikeConditionEscape {
      * @return converted search criteria string.
      */
     public String toEndingWithCondition(String condition) {
-        if (condition == null) {
-            return null;
-        }
-        return toLikeCondition(condition, new StringBuilder("%")).toString();
+        return decorate(condition, true, false);
     }
 
     /**
@@ -191,10 +274,229 @@ public class LikeConditionEscape {
      * @return converted search criteria string.
      */
     public String toContainingCondition(String condition) {
+        return decorate(condition, true, true);
+    }
+
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition at once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link #toLikeCondition(String, StringBuilder)}. All conditions are converted with one
+     * buffer sized for the longest condition, and a condition which needs no escape is returned as it is.
+     * </p>
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @since 5.7.0
+     */
+    public List<String> toLikeConditions(Collection<String> conditions) {
+        return decorateAll(conditions, false, false);
+    }
+
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition ,and append "%" keyword to the backward at
+     * once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link #toLikeCondition(String, StringBuilder)}.
+     * </p>
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @see #toLikeConditions(Collection)
+     * @since 5.7.0
+     */
+    public List<String> toStartingWithConditions(
+            Collection<String> conditions) {
+        return decorateAll(conditions, false, true);
+    }
+
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition ,and append "%" keyword to the front at once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link #toLikeCondition(String, StringBuilder)}.
+     * </p>
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @see #toLikeConditions(Collection)
+     * @since 5.7.0
+     */
+    public List<String> toEndingWithConditions(Collection<String> conditions) {
+        return decorateAll(conditions, true, false);
+    }
+
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition ,and append "%" keyword to the back and forth
+     * at once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link #toLikeCondition(String, StringBuilder)}.
+     * </p>
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @see #toLikeConditions(Collection)
+     * @since 5.7.0
+     */
+    public List<String> toContainingConditions(
+            Collection<String> conditions) {
+        return decorateAll(conditions, true, true);
+    }
+
+    /**
+     * Escape the given conditions and append "%" to the front and/or the backward of each.
+     * @param conditions search criteria strings.
+     * @param leading whether to append "%" to the front
+     * @param trailing whether to append "%" to the backward
+     * @return unmodifiable list of the converted search criteria strings
+     */
+    private List<String> decorateAll(Collection<String> conditions,
+            boolean leading, boolean trailing) {
+        if (conditions == null) {
+            return null;
+        }
+        int maxLength = 0;
+        for (String condition : conditions) {
+            if (condition != null) {
+                maxLength = Math.max(maxLength, condition.length());
+            }
+        }
+        // large enough even if all characters are escaped, so that the buffer never grows
+        StringBuilder buffer = new StringBuilder(maxLength * 2 + 2);
+        List<String> converted = new ArrayList<String>(conditions.size());
+        for (String condition : conditions) {
+            if (condition == null) {
+                converted.add(null);
+                continue;
+            }
+            int first = indexOfSpecial(condition, 0);
+            if (first < 0 && !leading && !trailing) {
+                converted.add(condition);
+                continue;
+            }
+            buffer.setLength(0);
+            if (leading) {
+                buffer.append('%');
+            }
+            appendEscaped(condition, first, buffer);
+            if (trailing) {
+                buffer.append('%');
+            }
+            converted.add(buffer.toString());
+        }
+        return Collections.unmodifiableList(converted);
+    }
+
+    /**
+     * Escape the given condition and append "%" to the front and/or the backward.
+     * @param condition search criteria string.
+     * @param leading whether to append "%" to the front
+     * @param trailing whether to append "%" to the backward
+     * @return converted search criteria string. the given condition itself if it is not escaped nor decorated.
+     */
+    private String decorate(String condition, boolean leading,
+            boolean trailing) {
         if (condition == null) {
             return null;
         }
-        return toLikeCondition(condition, new StringBuilder("%")).append("%")
-                .toString();
+        int first = indexOfSpecial(condition, 0);
+        if (first < 0 && !leading && !trailing) {
+            return condition;
+        }
+        // room for the wildcards and a few escape characters
+        StringBuilder sb = new StringBuilder(condition.length() + (first < 0
+                ? 2 : 10));
+        if (leading) {
+            sb.append('%');
+        }
+        appendEscaped(condition, first, sb);
+        if (trailing) {
+            sb.append('%');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escape the given condition and append it.
+     * @param condition search criteria string.
+     * @param first index of the first character to escape. {@code -1} if none.
+     * @param out destination
+     */
+    private void appendEscaped(String condition, int first,
+            StringBuilder out) {
+        int runStart = 0;
+        int i = first;
+        while (i >= 0) {
+            // append the characters which need no escape at once
+            out.append(condition, runStart, i).append(escapeChar);
+            runStart = i;
+            i = indexOfSpecial(condition, i + 1);
+        }
+        out.append(condition, runStart, condition.length());
+    }
+
+    /**
+     * returns the index of the first character to escape.
+     * @param condition search criteria string.
+     * @param start index to start
+     * @return index of the character to escape. {@code -1} if none.
+     */
+    private int indexOfSpecial(String condition, int start) {
+        long[] mask = latin1;
+        int len = condition.length();
+        for (int i = start; i < len; i++) {
+            char c = condition.charAt(i);
+            if (c < LATIN1_LIMIT) {
+                if ((mask[c >>> 6] & (1L << c)) != 0) {
+                    return i;
+                }
+            } else if (others.length != 0 && Arrays.binarySearch(others,
+                    c) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Dialect of the database which decides the escape character and the characters to escape.
+     * @since 5.7.0
+     */
+    public enum Dialect {
+
+        /**
+         * escape '%' and '_' with '~'. specify {@code ESCAPE '~'} in the query.
+         */
+        STANDARD(LIKE_ESC_CHAR, ""),
+
+        /**
+         * escape '%', '_' and '[' with '~' for SQL Server, where '[' starts a character class. specify {@code ESCAPE '~'} in
+         * the query.
+         */
+        SQL_SERVER(LIKE_ESC_CHAR, "["),
+
+        /**
+         * escape '%' and '_' with '\' for PostgreSQL, where '\' is the default escape character. no ESCAPE clause is
+         * needed.
+         */
+        POSTGRESQL('\\', "");
+
+        /**
+         * escape character.
+         */
+        private final char escapeChar;
+
+        /**
+         * characters to escape in addition to the escape character and the wildcards.
+         */
+        private final String specialChars;
+
+        /**
+         * Constructor.
+         * @param escapeChar escape character
+         * @param specialChars characters to escape in addition to the escape character and the wildcards
+         */
+        Dialect(char escapeChar, String specialChars) {
+            this.escapeChar = escapeChar;
+            this.specialChars = specialChars;
+        }
     }
 }
@@ -15,6 +15,9 @@
  */
 package org.terasoluna.gfw.common.query;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Utility about escaping of query.<br>
  * <p>
@@ -149,6 +152,83 @@ public final class QueryEscapeUtils {
         return WITHOUT_FULL_WIDTH.toContainingCondition(condition);
     }
 
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition at once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link QueryEscapeUtils#toLikeCondition(String, StringBuilder)}.
+     * </p>
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @see LikeConditionEscape#toLikeConditions(Collection)
+     * @since 5.7.0
+     */
+    public static List<String> toLikeConditions(Collection<String> conditions) {
+        return WITHOUT_FULL_WIDTH.toLikeConditions(conditions);
+    }
+
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition ,and append "%" keyword to the backward at
+     * once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link QueryEscapeUtils#toLikeCondition(String, StringBuilder)}.
+     * </p>
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @see LikeConditionEscape#toStartingWithConditions(Collection)
+     * @since 5.7.0
+     */
+    public static List<String> toStartingWithConditions(
+            Collection<String> conditions) {
+        return WITHOUT_FULL_WIDTH.toStartingWithConditions(conditions);
+    }
+
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition ,and append "%" keyword to the front at once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link QueryEscapeUtils#toLikeCondition(String, StringBuilder)}.
+     * </p>
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @see LikeConditionEscape#toEndingWithConditions(Collection)
+     * @since 5.7.0
+     */
+    public static List<String> toEndingWithConditions(
+            Collection<String> conditions) {
+        return WITHOUT_FULL_WIDTH.toEndingWithConditions(conditions);
+    }
+
+    /**
+     * Convert search criteria strings to the escaped strings of LIKE condition ,and append "%" keyword to the back and forth
+     * at once.
+     * <p>
+     * Conversion rules see JavaDoc of {@link QueryEscapeUtils#toLikeCondition(String, StringBuilder)}. It can be used in the
+     * mapper XML of MyBatis to escape all terms before iterating them like following:
+     * </p>
+     *
+     * <pre>
+     * <code>
+     * &lt;bind name="patterns"
+     *     value="@org.terasoluna.gfw.common.query.QueryEscapeUtils@toContainingConditions(words)" /&gt;
+     * &lt;foreach collection="patterns" item="pattern" separator=" AND "&gt;
+     *     name LIKE #{pattern} ESCAPE '~'
+     * &lt;/foreach&gt;
+     * </code>
+     * </pre>
+     *
+     * @param conditions search criteria strings. may contain {@code null}.
+     * @return unmodifiable list of the converted search criteria strings in the same order. {@code null} if conditions is
+     *         {@code null}.
+     * @see LikeConditionEscape#toContainingConditions(Collection)
+     * @since 5.7.0
+     */
+    public static List<String> toContainingConditions(
+            Collection<String> conditions) {
+        return WITHOUT_FULL_WIDTH.toContainingConditions(conditions);
+    }
+
     /**
      * <p>
      * Returns {@link LikeConditionEscape} object to convert a search criteria string to the escaped string of LIKE condition.
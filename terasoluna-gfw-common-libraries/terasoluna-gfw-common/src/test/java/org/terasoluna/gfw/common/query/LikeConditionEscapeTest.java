@@ -0,0 +1,136 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.query;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.terasoluna.gfw.common.query.LikeConditionEscape.Dialect;
+
+public class LikeConditionEscapeTest {
+
+    @Test
+    public void testToLikeCondition_sameInstanceIfNotEscaped() {
+        String condition = "abc[\\あ";
+
+        assertThat(LikeConditionEscape.withFullWidthWildcardsEscape()
+                .toLikeCondition(condition), sameInstance(condition));
+        assertThat(LikeConditionEscape.withFullWidthWildcardsEscape()
+                .toContainingCondition(condition), is("%abc[\\あ%"));
+    }
+
+    @Test
+    public void testDialect_standard() {
+        LikeConditionEscape escape = LikeConditionEscape.of(Dialect.STANDARD,
+                false);
+
+        assertThat(escape.getEscapeChar(), is('~'));
+        assertThat(escape.toLikeCondition("a~%_[\\％"), is("a~~~%~_[\\％"));
+    }
+
+    @Test
+    public void testDialect_sqlServer() {
+        LikeConditionEscape escape = LikeConditionEscape.of(Dialect.SQL_SERVER,
+                true);
+
+        assertThat(escape.getEscapeChar(), is('~'));
+        assertThat(escape.toStartingWithCondition("[a]%＿"), is("~[a]~%~＿%"));
+    }
+
+    @Test
+    public void testDialect_postgresql() {
+        LikeConditionEscape escape = LikeConditionEscape.of(Dialect.POSTGRESQL,
+                false);
+
+        assertThat(escape.getEscapeChar(), is('\\'));
+        assertThat(escape.toEndingWithCondition("a\\b%c_~"), is(
+                "%a\\\\b\\%c\\_~"));
+    }
+
+    @Test
+    public void testOf_customEscapeChar() {
+        LikeConditionEscape escape = LikeConditionEscape.of('＃', true, "[^");
+
+        assertThat(escape.getEscapeChar(), is('＃'));
+        assertThat(escape.toLikeCondition("＃a%[^％~", new StringBuilder("x"))
+                .toString(), is("x＃＃a＃%＃[＃^＃％~"));
+    }
+
+    @Test
+    public void testOf_invalidArguments() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> LikeConditionEscape.of(
+                        null, true));
+        assertThat(ex.getMessage(), is("dialect must not be null."));
+        ex = assertThrows(IllegalArgumentException.class,
+                () -> LikeConditionEscape.of('~', true, null));
+        assertThat(ex.getMessage(), is("specialChars must not be null."));
+    }
+
+    @Test
+    public void testToConditions_bulk() {
+        LikeConditionEscape escape = LikeConditionEscape
+                .withFullWidthWildcardsEscape();
+        String plain = "abc";
+        List<String> conditions = Arrays.asList(plain, "a%b_c~", null, "",
+                "％＿");
+
+        List<String> likes = escape.toLikeConditions(conditions);
+
+        assertThat(likes, is(Arrays.asList("abc", "a~%b~_c~~", null, "",
+                "~％~＿")));
+        assertThat(likes.get(0), sameInstance(plain));
+        assertThat(escape.toStartingWithConditions(conditions), is(Arrays
+                .asList("abc%", "a~%b~_c~~%", null, "%", "~％~＿%")));
+        assertThat(escape.toEndingWithConditions(conditions), is(Arrays.asList(
+                "%abc", "%a~%b~_c~~", null, "%", "%~％~＿")));
+        assertThat(escape.toContainingConditions(conditions), is(Arrays
+                .asList("%abc%", "%a~%b~_c~~%", null, "%%", "%~％~＿%")));
+        assertThat(escape.toLikeConditions(null), is(nullValue()));
+    }
+
+    @Test
+    public void testToConditions_bulkSameAsSingle() {
+        LikeConditionEscape escape = LikeConditionEscape.of(Dialect.SQL_SERVER,
+                true);
+        List<String> conditions = Arrays.asList("~~~~", "[%_]", "x", "",
+                "long condition with no wildcard", "%%%%%%%%%%%%");
+
+        List<String> containing = escape.toContainingConditions(conditions);
+
+        for (int i = 0; i < conditions.size(); i++) {
+            assertThat(containing.get(i), is(escape.toContainingCondition(
+                    conditions.get(i))));
+        }
+    }
+
+    @Test
+    public void testToConditions_unmodifiable() {
+        List<String> conditions = QueryEscapeUtils.toContainingConditions(Arrays
+                .asList("a%"));
+
+        assertThat(conditions, is(Arrays.asList("%a~%%")));
+        assertThrows(UnsupportedOperationException.class, () -> conditions.add(
+                "b"));
+    }
+}
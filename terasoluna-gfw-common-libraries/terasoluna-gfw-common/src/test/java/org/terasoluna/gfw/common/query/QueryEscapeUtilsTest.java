@@ -20,6 +20,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsNull.notNullValue;
 
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 import org.junit.experimental.theories.DataPoints;
@@ -185,6 +187,23 @@ public class QueryEscapeUtilsTest {
         assertThat(errorMessage, actual.toString(), is(expected.toString()));
     }
 
+    /**
+     * test {@link QueryEscapeUtils#toLikeConditions(java.util.Collection)} and the variants
+     */
+    @Test
+    public void testToConditions() {
+        List<String> conditions = Arrays.asList("a", "a~%_％＿b", null);
+
+        assertThat(QueryEscapeUtils.toLikeConditions(conditions), is(Arrays
+                .asList("a", "a~~~%~_％＿b", null)));
+        assertThat(QueryEscapeUtils.toStartingWithConditions(conditions), is(
+                Arrays.asList("a%", "a~~~%~_％＿b%", null)));
+        assertThat(QueryEscapeUtils.toEndingWithConditions(conditions), is(
+                Arrays.asList("%a", "%a~~~%~_％＿b", null)));
+        assertThat(QueryEscapeUtils.toContainingConditions(conditions), is(
+                Arrays.asList("%a%", "%a~~~%~_％＿b%", null)));
+    }
+
     @Test
     public void testQueryEscapeUtils() throws Exception {
         // set up
@@ -783,11 +783,10 @@ public final class DefaultFullHalf {
     }
 
     /**
-     * a singleton instance with default mapping table.
-     * @see DefaultFullHalf
+     * default mapping table.
+     * @since 5.7.0
      */
-    public static final FullHalfConverter INSTANCE = new FullHalfConverter(
-            new FullHalfPairsBuilder()
+    static final FullHalfPairs PAIRS = new FullHalfPairsBuilder()
                 .pair("！", "!")
                 .pair("”", "\"")
                 .pair("＃", "#")
@@ -974,5 +973,12 @@ public final class DefaultFullHalf {
                 .pair("゛", "ﾞ")
                 .pair("゜", "ﾟ")
                 .pair("　", " ")
-                .build());
+                .build();
+
+    /**
+     * a singleton instance with default mapping table.
+     * @see DefaultFullHalf
+     */
+    public static final FullHalfConverter INSTANCE = new FullHalfConverter(
+            PAIRS);
 }
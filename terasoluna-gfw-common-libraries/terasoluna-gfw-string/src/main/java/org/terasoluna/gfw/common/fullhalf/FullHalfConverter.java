@@ -15,12 +15,9 @@
  */
 package org.terasoluna.gfw.common.fullhalf;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.ReadOnlyBufferException;
 
 /**
  * Convert which converts from fullwidth to halfwidth and from halfwidth to fullwidth. This implementation does not have the
@@ -36,18 +33,17 @@ import java.util.Set;
  * If the halfwidth or fullwidth in the given pair is already registered, the former is preferred. Note that it cannot be
  * overridden.
  * </p>
+ * <p>
+ * The pairs are compiled into an immutable lookup table, which is shared among the converters created from the same pairs in
+ * the same order. Creating a converter per bean does not duplicate the table.
+ * </p>
  * @since 5.1.0
  */
 public final class FullHalfConverter {
     /**
-     * map to convert from fullwidth char
+     * compiled mapping table
      */
-    private final Map<String, FullHalfPair> fullwidthMap;
-
-    /**
-     * map to convert from halfwidth char
-     */
-    private final Map<String, FullHalfPair> halfwidthMap;
+    private final FullHalfTable table;
 
     /**
      * predicates if the given character is appendable like 'ﾞ' or 'ﾟ'.
@@ -65,112 +61,412 @@ public final class FullHalfConverter {
         if (pairs == null) {
             throw new IllegalArgumentException("pairs must not be null.");
         }
-        Set<FullHalfPair> pairSet = pairs.pairs();
-        Map<String, FullHalfPair> f = new HashMap<String, FullHalfPair>();
-        Map<String, FullHalfPair> h = new HashMap<String, FullHalfPair>();
-        for (FullHalfPair pair : pairSet) {
-            // first definition is prior
-            if (!f.containsKey(pair.fullwidth())) {
-                f.put(pair.fullwidth(), pair);
-            }
-            if (!h.containsKey(pair.halfwidth())) {
-                h.put(pair.halfwidth(), pair);
-            }
-        }
-        this.fullwidthMap = Collections.unmodifiableMap(f);
-        this.halfwidthMap = Collections.unmodifiableMap(h);
+        this.table = FullHalfTable.of(pairs.pairs());
         this.predicate = pairs.predicate();
     }
 
     /**
      * Converts from fullwidth to halfwidth as much as possible with the given mapping table.
      * @param fullwidth string to convert
-     * @return converted string. if the given string is null or empty, returns as it is.
+     * @return converted string. if the given string is null or empty, or no character is converted, returns as it is.
      */
     public String toHalfwidth(String fullwidth) {
+        return convertToHalfwidth(fullwidth, null);
+    }
+
+    /**
+     * Converts from fullwidth to halfwidth using the given buffer for the conversion.
+     * @param fullwidth string to convert
+     * @param buffer buffer to reuse. {@code null} to create a new one only when any character is converted.
+     * @return converted string. if the given string is null or empty, or no character is converted, returns as it is.
+     */
+    String convertToHalfwidth(String fullwidth, StringBuilder buffer) {
         if (fullwidth == null || fullwidth.isEmpty()) {
             return fullwidth;
         }
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < fullwidth.length(); i++) {
-            String s = String.valueOf(fullwidth.charAt(i));
-            builder.append(halfwidth(s));
+        int first = firstHalfwidthIndex(fullwidth);
+        if (first < 0) {
+            return fullwidth;
         }
+        StringBuilder builder = prepare(buffer, fullwidth.length() + 16);
+        builder.append(fullwidth, 0, first);
+        toHalfwidth(fullwidth, first, builder);
         return builder.toString();
     }
 
+    /**
+     * Converts from fullwidth to halfwidth as much as possible with the given mapping table and appends the result to the
+     * given {@link Appendable}. Unconverted characters are appended in runs. Use {@link java.nio.CharBuffer#wrap(char[], int,
+     * int)} to convert a range of a char array.
+     * @param fullwidth characters to convert. if null or empty, nothing is appended.
+     * @param out destination
+     * @throws IOException if an I/O error occurs
+     * @since 5.7.0
+     */
+    public void toHalfwidth(CharSequence fullwidth,
+            Appendable out) throws IOException {
+        if (fullwidth != null) {
+            appendHalfwidth(fullwidth, 0, fullwidth.length(), out);
+        }
+    }
+
+    /**
+     * Converts from fullwidth to halfwidth as much as possible with the given mapping table and appends the result to the
+     * given {@link StringBuilder}.
+     * @param fullwidth characters to convert. if null or empty, nothing is appended.
+     * @param out destination
+     * @since 5.7.0
+     */
+    public void toHalfwidth(CharSequence fullwidth, StringBuilder out) {
+        if (fullwidth != null) {
+            toHalfwidth(fullwidth, 0, out);
+        }
+    }
+
     /**
      * Converts from halfwidth to fullwidth as much as possible with the given mapping table.
      * @param halfwidth string to convert
-     * @return converted string. if the given string is null or empty, returns as it is.
+     * @return converted string. if the given string is null or empty, or no character is converted, returns as it is.
      */
     public String toFullwidth(String halfwidth) {
+        return convertToFullwidth(halfwidth, null);
+    }
+
+    /**
+     * Converts from halfwidth to fullwidth using the given buffer for the conversion.
+     * @param halfwidth string to convert
+     * @param buffer buffer to reuse. {@code null} to create a new one only when any character is converted.
+     * @return converted string. if the given string is null or empty, or no character is converted, returns as it is.
+     */
+    String convertToFullwidth(String halfwidth, StringBuilder buffer) {
         if (halfwidth == null || halfwidth.isEmpty()) {
             return halfwidth;
         }
-        StringBuilder builder = new StringBuilder();
-        Queue<String> buffer = new LinkedList<String>(); // use queue as 1 element buffer
+        int first = firstFullwidthIndex(halfwidth);
+        if (first < 0) {
+            return halfwidth;
+        }
+        StringBuilder builder = prepare(buffer, halfwidth.length());
+        builder.append(halfwidth, 0, first);
+        toFullwidth(halfwidth, first, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Converts from halfwidth to fullwidth as much as possible with the given mapping table and appends the result to the
+     * given {@link Appendable}. Unconverted characters are appended in runs. Use {@link java.nio.CharBuffer#wrap(char[], int,
+     * int)} to convert a range of a char array.
+     * @param halfwidth characters to convert. if null or empty, nothing is appended.
+     * @param out destination
+     * @throws IOException if an I/O error occurs
+     * @since 5.7.0
+     */
+    public void toFullwidth(CharSequence halfwidth,
+            Appendable out) throws IOException {
+        if (halfwidth != null) {
+            appendFullwidth(halfwidth, 0, halfwidth.length(), true, out);
+        }
+    }
 
-        for (int i = 0; i < halfwidth.length(); i++) {
-            char c = halfwidth.charAt(i);
-            String s = String.valueOf(c);
-            // next loop when the buffer is empty
-            if (buffer.isEmpty()) {
-                buffer.add(s);
+    /**
+     * Converts from halfwidth to fullwidth as much as possible with the given mapping table and appends the result to the
+     * given {@link StringBuilder}.
+     * @param halfwidth characters to convert. if null or empty, nothing is appended.
+     * @param out destination
+     * @since 5.7.0
+     */
+    public void toFullwidth(CharSequence halfwidth, StringBuilder out) {
+        if (halfwidth != null) {
+            toFullwidth(halfwidth, 0, out);
+        }
+    }
+
+    /**
+     * Converts the remaining characters of the given buffer from fullwidth to halfwidth in place. If a character is converted
+     * to 2 characters like 'ガ' to "ｶﾞ", the result does not fit in the buffer and a new buffer holding the result is returned.
+     * In that case the content of the given buffer is unspecified.
+     * @param fullwidth buffer to convert. the characters between the position and the limit are converted.
+     * @return the given buffer with the converted characters between the position and the limit, or a new buffer holding the
+     *         converted characters if they do not fit
+     * @throws ReadOnlyBufferException if the given buffer is read-only
+     * @since 5.7.0
+     */
+    public CharBuffer toHalfwidthInPlace(CharBuffer fullwidth) {
+        if (fullwidth.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        int start = fullwidth.position();
+        int end = fullwidth.limit();
+        for (int i = start; i < end; i++) {
+            int halfwidth = table.halfwidth(fullwidth.get(i));
+            if (halfwidth == FullHalfTable.NOT_MAPPED) {
+                continue;
+            }
+            if (halfwidth != FullHalfTable.TWO_CHARS) {
+                fullwidth.put(i, (char) halfwidth);
                 continue;
             }
-            // poll the previous string from buffer
-            String prev = buffer.poll();
-            // check if the target character is appendable
-            if (predicate.isAppendable(c)) {
-                // check if "previous string"+"appendable char" is contained in the mapping table
-                FullHalfPair pair = this.halfwidthMap.get(prev + s);
-                if (pair != null) {
-                    // append the concatenated string
-                    builder.append(pair.fullwidth());
+            // expanded, so the rest is converted into a new buffer. the CharSequence is relative to the position.
+            StringBuilder builder = new StringBuilder(end - start + 16);
+            builder.append(fullwidth, 0, i - start);
+            toHalfwidth(fullwidth, i - start, builder);
+            char[] chars = new char[builder.length()];
+            builder.getChars(0, chars.length, chars, 0);
+            return CharBuffer.wrap(chars);
+        }
+        return fullwidth;
+    }
+
+    /**
+     * Converts the given range of the char array from fullwidth to halfwidth in place.
+     * @param fullwidth chars to convert
+     * @param offset index of the first char to convert
+     * @param length number of chars to convert
+     * @return buffer wrapping the given array with the converted characters between the position and the limit, or a new
+     *         buffer holding the converted characters if they do not fit
+     * @throws IndexOutOfBoundsException if the range is out of the array
+     * @see #toHalfwidthInPlace(CharBuffer)
+     * @since 5.7.0
+     */
+    public CharBuffer toHalfwidthInPlace(char[] fullwidth, int offset,
+            int length) {
+        return toHalfwidthInPlace(CharBuffer.wrap(fullwidth, offset, length));
+    }
+
+    /**
+     * Converts the remaining characters of the given buffer from halfwidth to fullwidth in place. Since the result is never
+     * longer than the given characters, the conversion never allocates. If characters are combined like "ｶﾞ" to 'ガ', the limit
+     * of the buffer is moved back to the end of the result.
+     * @param halfwidth buffer to convert. the characters between the position and the limit are converted.
+     * @return the given buffer with the converted characters between the position and the limit
+     * @throws ReadOnlyBufferException if the given buffer is read-only
+     * @since 5.7.0
+     */
+    public CharBuffer toFullwidthInPlace(CharBuffer halfwidth) {
+        if (halfwidth.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        int end = halfwidth.limit();
+        // the write index never passes the read index since a token is never expanded
+        int w = halfwidth.position();
+        int i = w;
+        while (i < end) {
+            char c = halfwidth.get(i);
+            if (i + 1 < end && predicate.isAppendable(halfwidth.get(i + 1))) {
+                char next = halfwidth.get(i + 1);
+                int combined = table.fullwidth(c, next);
+                if (combined != FullHalfTable.NOT_MAPPED) {
+                    halfwidth.put(w++, (char) combined);
                 } else {
-                    // append fullwidth of the previous string and current string
-                    builder.append(fullwidth(prev));
-                    builder.append(fullwidth(s));
+                    halfwidth.put(w++, fullwidthOrItself(c));
+                    halfwidth.put(w++, fullwidthOrItself(next));
                 }
+                i += 2;
             } else {
-                // append fullwidth of the previous string and put current string into the buffer
-                builder.append(fullwidth(prev));
-                buffer.add(s);
+                halfwidth.put(w++, fullwidthOrItself(c));
+                i++;
             }
         }
-        // append the string in the buffer if exists
-        if (!buffer.isEmpty()) {
-            builder.append(fullwidth(buffer.poll()));
+        halfwidth.limit(w);
+        return halfwidth;
+    }
+
+    /**
+     * Converts the given range of the char array from halfwidth to fullwidth in place.
+     * @param halfwidth chars to convert
+     * @param offset index of the first char to convert
+     * @param length number of chars to convert
+     * @return buffer wrapping the given array with the converted characters between the position and the limit
+     * @throws IndexOutOfBoundsException if the range is out of the array
+     * @see #toFullwidthInPlace(CharBuffer)
+     * @since 5.7.0
+     */
+    public CharBuffer toFullwidthInPlace(char[] halfwidth, int offset,
+            int length) {
+        return toFullwidthInPlace(CharBuffer.wrap(halfwidth, offset, length));
+    }
+
+    /**
+     * returns the fullwidth of the given character, or the character itself if not mapped.
+     * @param c halfwidth character
+     * @return fullwidth character
+     */
+    private char fullwidthOrItself(char c) {
+        int fullwidth = table.fullwidth(c);
+        return fullwidth == FullHalfTable.NOT_MAPPED ? c : (char) fullwidth;
+    }
+
+    /**
+     * returns the given buffer cleared, or a new buffer if not given.
+     * @param buffer buffer to reuse. may be {@code null}.
+     * @param capacity initial capacity of a new buffer
+     * @return empty buffer
+     */
+    private static StringBuilder prepare(StringBuilder buffer, int capacity) {
+        if (buffer == null) {
+            return new StringBuilder(capacity);
         }
-        return builder.toString();
+        buffer.setLength(0);
+        return buffer;
     }
 
     /**
-     * Returns fullwidth string if the given halfwidth string exists in the pairs
-     * @param s halfwidth
-     * @return fullwidth for the given halfwidth
+     * returns the index of the first character which is converted to halfwidth.
+     * @param s characters to check
+     * @return index of the first character to convert. {@code -1} if no character is converted.
      */
-    private String fullwidth(String s) {
-        FullHalfPair pair = this.halfwidthMap.get(s);
-        if (pair != null) {
-            return pair.fullwidth();
-        } else {
-            return s;
+    private int firstHalfwidthIndex(CharSequence s) {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            if (table.hasHalfwidth(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * returns the index of the first character which is converted to fullwidth. The index is always the start of a character or
+     * a character followed by an appendable character, so that the conversion can start from there.
+     * @param s characters to check
+     * @return index of the first character to convert. {@code -1} if no character is converted.
+     */
+    private int firstFullwidthIndex(CharSequence s) {
+        int len = s.length();
+        int i = 0;
+        while (i < len) {
+            char c = s.charAt(i);
+            if (i + 1 < len && predicate.isAppendable(s.charAt(i + 1))) {
+                char next = s.charAt(i + 1);
+                if (table.fullwidth(c, next) != FullHalfTable.NOT_MAPPED
+                        || table.fullwidth(c) != FullHalfTable.NOT_MAPPED
+                        || table.fullwidth(next) != FullHalfTable.NOT_MAPPED) {
+                    return i;
+                }
+                i += 2;
+            } else {
+                if (table.fullwidth(c) != FullHalfTable.NOT_MAPPED) {
+                    return i;
+                }
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Converts from fullwidth to halfwidth from the given index into the given {@link StringBuilder}.
+     * @param s characters to convert
+     * @param start index to start
+     * @param out destination
+     */
+    private void toHalfwidth(CharSequence s, int start, StringBuilder out) {
+        try {
+            appendHalfwidth(s, start, s.length(), out);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Converts from halfwidth to fullwidth from the given index into the given {@link StringBuilder}.
+     * @param s characters to convert
+     * @param start index to start
+     * @param out destination
+     */
+    private void toFullwidth(CharSequence s, int start, StringBuilder out) {
+        try {
+            appendFullwidth(s, start, s.length(), true, out);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Converts the given range from fullwidth to halfwidth and appends the result.
+     * @param s characters to convert
+     * @param start index of the first character
+     * @param end index after the last character
+     * @param out destination
+     * @throws IOException if an I/O error occurs
+     */
+    void appendHalfwidth(CharSequence s, int start, int end,
+            Appendable out) throws IOException {
+        int runStart = start;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (table.hasHalfwidth(c)) {
+                // append the unconverted characters before the character at once
+                out.append(s, runStart, i);
+                table.appendHalfwidth(c, out);
+                runStart = i + 1;
+            }
+        }
+        out.append(s, runStart, end);
+    }
+
+    /**
+     * Converts the given range from halfwidth to fullwidth and appends the result. If the range is not the end of the input,
+     * the last character is left unconverted when it may be combined with an appendable character which follows the range.
+     * @param s characters to convert
+     * @param start index of the first character
+     * @param end index after the last character
+     * @param endOfInput whether no character follows the range
+     * @param out destination
+     * @return index after the last converted character. {@code end - 1} if the last character is left.
+     * @throws IOException if an I/O error occurs
+     */
+    int appendFullwidth(CharSequence s, int start, int end, boolean endOfInput,
+            Appendable out) throws IOException {
+        int runStart = start;
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (i + 1 == end && !endOfInput) {
+                // the next character is unknown yet
+                break;
+            }
+            // peek the next character to check if it is appendable like 'ﾞ' or 'ﾟ'
+            if (i + 1 < end && predicate.isAppendable(s.charAt(i + 1))) {
+                char next = s.charAt(i + 1);
+                int combined = table.fullwidth(c, next);
+                if (combined != FullHalfTable.NOT_MAPPED) {
+                    // append the fullwidth of the concatenated string
+                    out.append(s, runStart, i).append((char) combined);
+                    runStart = i + 2;
+                } else {
+                    // convert the current and the next character respectively
+                    runStart = appendFullwidth(s, runStart, i, out);
+                    runStart = appendFullwidth(s, runStart, i + 1, out);
+                }
+                i += 2;
+            } else {
+                runStart = appendFullwidth(s, runStart, i, out);
+                i++;
+            }
         }
+        out.append(s, runStart, i);
+        return i;
     }
 
     /**
-     * Returns halfwidth string if the given fullwidth string exists in the pairs
-     * @param s fullwidth
-     * @return halfwidth for the given fullwidth
+     * appends the fullwidth of the character at the given index if mapped, after the unconverted characters before it.
+     * @param s characters to convert
+     * @param runStart index of the first unconverted character not appended yet
+     * @param index index of the character to convert
+     * @param out destination
+     * @return index of the first unconverted character not appended yet after the call
+     * @throws IOException if an I/O error occurs
      */
-    private String halfwidth(String s) {
-        FullHalfPair pair = this.fullwidthMap.get(s);
-        if (pair != null) {
-            return pair.halfwidth();
-        } else {
-            return s;
+    private int appendFullwidth(CharSequence s, int runStart, int index,
+            Appendable out) throws IOException {
+        int fullwidth = table.fullwidth(s.charAt(index));
+        if (fullwidth == FullHalfTable.NOT_MAPPED) {
+            return runStart;
         }
+        out.append(s, runStart, index).append((char) fullwidth);
+        return index + 1;
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * {@link Reader} which converts characters read from the underlying reader with {@link FullHalfConverter}.
+ *
+ * <pre>
+ * <code>try (BufferedReader reader = new BufferedReader(FullHalfReader.toFullwidth(in, DefaultFullHalf.INSTANCE))) {
+ *     String line = reader.readLine(); // "ｶﾞ" is read as "ガ"
+ * }</code>
+ * </pre>
+ * <p>
+ * Characters are converted incrementally with bounded buffers, so the memory usage does not depend on the size of the
+ * input. When converting to fullwidth, the last character read from the underlying reader is kept until the next read since
+ * it may be combined with an appendable character like 'ﾞ' or 'ﾟ' which follows. This class does not support
+ * {@link #mark(int)} and is not thread-safe.
+ * </p>
+ * @since 5.7.0
+ */
+public final class FullHalfReader extends Reader {
+
+    /**
+     * max number of characters read from the underlying reader at once.
+     */
+    static final int BUFFER_SIZE = 4096;
+
+    /**
+     * underlying reader.
+     */
+    private final Reader in;
+
+    /**
+     * converter.
+     */
+    private final FullHalfConverter converter;
+
+    /**
+     * whether to convert to fullwidth or halfwidth.
+     */
+    private final boolean fullwidth;
+
+    /**
+     * characters read from the underlying reader. the kept character is at the head.
+     */
+    private final char[] input = new char[BUFFER_SIZE + 1];
+
+    /**
+     * the number of the kept characters, {@code 0} or {@code 1}.
+     */
+    private int pendingLength;
+
+    /**
+     * converted characters.
+     */
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE * 2
+            + 2);
+
+    /**
+     * index of the next character to return in {@link #buffer}.
+     */
+    private int position;
+
+    /**
+     * whether the underlying reader reached the end.
+     */
+    private boolean eof;
+
+    /**
+     * Constructor.
+     * @param in underlying reader
+     * @param converter converter
+     * @param fullwidth {@code true} to convert to fullwidth, {@code false} to convert to halfwidth
+     */
+    private FullHalfReader(Reader in, FullHalfConverter converter,
+            boolean fullwidth) {
+        super(in);
+        this.in = in;
+        this.converter = converter;
+        this.fullwidth = fullwidth;
+    }
+
+    /**
+     * Create a reader which converts characters to fullwidth.
+     * @param in underlying reader
+     * @param converter converter
+     * @return converting reader
+     * @throws IllegalArgumentException if {@code in} or {@code converter} is {@code null}
+     */
+    public static FullHalfReader toFullwidth(Reader in,
+            FullHalfConverter converter) {
+        return create(in, converter, true);
+    }
+
+    /**
+     * Create a reader which converts characters to halfwidth.
+     * @param in underlying reader
+     * @param converter converter
+     * @return converting reader
+     * @throws IllegalArgumentException if {@code in} or {@code converter} is {@code null}
+     */
+    public static FullHalfReader toHalfwidth(Reader in,
+            FullHalfConverter converter) {
+        return create(in, converter, false);
+    }
+
+    /**
+     * Create a reader.
+     * @param in underlying reader
+     * @param converter converter
+     * @param fullwidth {@code true} to convert to fullwidth, {@code false} to convert to halfwidth
+     * @return converting reader
+     */
+    private static FullHalfReader create(Reader in,
+            FullHalfConverter converter, boolean fullwidth) {
+        if (in == null) {
+            throw new IllegalArgumentException("in must not be null.");
+        }
+        if (converter == null) {
+            throw new IllegalArgumentException("converter must not be null.");
+        }
+        return new FullHalfReader(in, converter, fullwidth);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > cbuf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.length() - position);
+        buffer.getChars(position, position + n, cbuf, off);
+        position += n;
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean ready() throws IOException {
+        return position < buffer.length() || in.ready();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * read and convert characters until any converted character is available.
+     * @return {@code false} if the end of the stream has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException {
+        while (position == buffer.length()) {
+            if (eof) {
+                return false;
+            }
+            buffer.setLength(0);
+            position = 0;
+            int n = in.read(input, pendingLength, BUFFER_SIZE);
+            int end = pendingLength;
+            if (n < 0) {
+                eof = true;
+            } else {
+                end += n;
+            }
+            CharBuffer chars = CharBuffer.wrap(input, 0, end);
+            if (fullwidth) {
+                int converted = converter.appendFullwidth(chars, 0, end, eof,
+                        buffer);
+                // keep the last character to combine with the next read
+                pendingLength = end - converted;
+                if (pendingLength > 0) {
+                    input[0] = input[converted];
+                }
+            } else {
+                converter.appendHalfwidth(chars, 0, end, buffer);
+            }
+        }
+        return true;
+    }
+}
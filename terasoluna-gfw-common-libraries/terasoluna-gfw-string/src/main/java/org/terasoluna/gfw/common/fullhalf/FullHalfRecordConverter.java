@@ -0,0 +1,264 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Converter which converts the selected columns of many records with {@link FullHalfConverter}.
+ *
+ * <pre>
+ * <code>FullHalfRecordConverter recordConverter = FullHalfRecordConverter.toFullwidth(DefaultFullHalf.INSTANCE, 1, 2);
+ * List&lt;String[]&gt; converted = recordConverter.convert(records); // converts the 2nd and 3rd columns</code>
+ * </pre>
+ * <p>
+ * A list of records is split into chunks which are converted in parallel on the common {@link ForkJoinPool}, and each chunk
+ * reuses one buffer for all of its fields. The result is in the same order as the input. A record whose selected fields are
+ * not changed is returned as it is, otherwise a copy of the record with the converted fields is returned, so the input is
+ * never modified. Columns which do not exist in a record are ignored.
+ * </p>
+ * <p>
+ * This class is immutable and thread-safe.
+ * </p>
+ * @since 5.7.0
+ */
+public final class FullHalfRecordConverter {
+
+    /**
+     * default number of records converted in a task without splitting.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    /**
+     * converter.
+     */
+    private final FullHalfConverter converter;
+
+    /**
+     * whether to convert to fullwidth or halfwidth.
+     */
+    private final boolean fullwidth;
+
+    /**
+     * distinct indexes of the columns to convert in ascending order. {@code null} to convert all columns.
+     */
+    private final int[] columns;
+
+    /**
+     * number of records converted in a task without splitting.
+     */
+    private final int chunkSize;
+
+    /**
+     * Constructor.
+     * @param converter converter
+     * @param fullwidth {@code true} to convert to fullwidth, {@code false} to convert to halfwidth
+     * @param columns indexes of the columns to convert. {@code null} or empty to convert all columns. duplicates are ignored.
+     * @param chunkSize number of records converted in a task without splitting
+     * @throws IllegalArgumentException if {@code converter} is {@code null} or any column is negative
+     */
+    FullHalfRecordConverter(FullHalfConverter converter, boolean fullwidth,
+            int[] columns, int chunkSize) {
+        if (converter == null) {
+            throw new IllegalArgumentException("converter must not be null.");
+        }
+        boolean all = columns == null || columns.length == 0;
+        if (!all) {
+            for (int column : columns) {
+                if (column < 0) {
+                    throw new IllegalArgumentException("column must be greater than or equal to 0 (column = "
+                            + column + ")");
+                }
+            }
+        }
+        this.converter = converter;
+        this.fullwidth = fullwidth;
+        // each column is converted once even if it is given more than once
+        this.columns = all ? null : Arrays.stream(columns).distinct().sorted()
+                .toArray();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Create a record converter which converts the given columns to fullwidth.
+     * @param converter converter
+     * @param columns indexes of the columns to convert (0-origin). all columns are converted if none is given. a column given
+     *            more than once is converted once.
+     * @return record converter
+     * @throws IllegalArgumentException if {@code converter} is {@code null} or any column is negative
+     */
+    public static FullHalfRecordConverter toFullwidth(
+            FullHalfConverter converter, int... columns) {
+        return new FullHalfRecordConverter(converter, true, columns,
+                DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a record converter which converts the given columns to halfwidth.
+     * @param converter converter
+     * @param columns indexes of the columns to convert (0-origin). all columns are converted if none is given. a column given
+     *            more than once is converted once.
+     * @return record converter
+     * @throws IllegalArgumentException if {@code converter} is {@code null} or any column is negative
+     */
+    public static FullHalfRecordConverter toHalfwidth(
+            FullHalfConverter converter, int... columns) {
+        return new FullHalfRecordConverter(converter, false, columns,
+                DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Convert the selected columns of the given record.
+     * @param record record to convert
+     * @return converted record. the given instance itself if no field is changed. {@code null} if the given record is
+     *         {@code null}.
+     */
+    public String[] convert(String[] record) {
+        return convert(record, null);
+    }
+
+    /**
+     * Convert the selected columns of the given records in parallel.
+     * @param records records to convert
+     * @return converted records in the same order as the given records
+     * @throws IllegalArgumentException if {@code records} is {@code null}
+     */
+    public List<String[]> convert(List<String[]> records) {
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null.");
+        }
+        String[][] converted = records.toArray(new String[records
+                .size()][]);
+        ConvertTask task = new ConvertTask(this, converted, 0,
+                converted.length);
+        if (converted.length <= chunkSize) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return Arrays.asList(converted);
+    }
+
+    /**
+     * Convert the selected columns of the records in the given stream lazily. The records are converted in parallel if the
+     * stream is parallel, and the order is kept if the stream is ordered.
+     * @param records records to convert
+     * @return stream of the converted records
+     * @throws IllegalArgumentException if {@code records} is {@code null}
+     */
+    public Stream<String[]> convert(Stream<String[]> records) {
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null.");
+        }
+        return records.map(this::convert);
+    }
+
+    /**
+     * Convert the selected columns of the given record using the given buffer.
+     * @param record record to convert
+     * @param buffer buffer to reuse. may be {@code null}.
+     * @return converted record
+     */
+    private String[] convert(String[] record, StringBuilder buffer) {
+        if (record == null) {
+            return null;
+        }
+        String[] converted = record;
+        int n = columns == null ? record.length : columns.length;
+        for (int i = 0; i < n; i++) {
+            int column = columns == null ? i : columns[i];
+            if (column >= record.length) {
+                continue;
+            }
+            String value = record[column];
+            String convertedValue = fullwidth ? converter.convertToFullwidth(
+                    value, buffer) : converter.convertToHalfwidth(value, buffer);
+            if (convertedValue != value) {
+                if (converted == record) {
+                    // copy on the first change not to modify the given record
+                    converted = record.clone();
+                }
+                converted[column] = convertedValue;
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Task which converts a range of records, or splits it and converts both halves.
+     */
+    private static final class ConvertTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * record converter.
+         */
+        private final FullHalfRecordConverter recordConverter;
+
+        /**
+         * records replaced with the converted ones.
+         */
+        private final String[][] records;
+
+        /**
+         * index of the first record of this task.
+         */
+        private final int start;
+
+        /**
+         * index after the last record of this task.
+         */
+        private final int end;
+
+        /**
+         * Constructor.
+         * @param recordConverter record converter
+         * @param records records replaced with the converted ones
+         * @param start index of the first record
+         * @param end index after the last record
+         */
+        ConvertTask(FullHalfRecordConverter recordConverter,
+                String[][] records, int start, int end) {
+            this.recordConverter = recordConverter;
+            this.records = records;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * convert the records, or split them and convert both halves.
+         */
+        @Override
+        protected void compute() {
+            if (end - start <= recordConverter.chunkSize) {
+                // one buffer is reused for all fields in the chunk
+                StringBuilder buffer = new StringBuilder(64);
+                for (int i = start; i < end; i++) {
+                    records[i] = recordConverter.convert(records[i], buffer);
+                }
+                return;
+            }
+            int mid = start + (end - start) / 2;
+            invokeAll(new ConvertTask(recordConverter, records, start, mid),
+                    new ConvertTask(recordConverter, records, mid, end));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.io.IOException;
+
+/**
+ * Converter which converts from fullwidth to halfwidth and from halfwidth to fullwidth by the longest match of strings of any
+ * length, such as ligatures or {@code "ｳﾞｧ"}. Use {@link FullHalfSequenceConverterBuilder} to create an instance like
+ * following:
+ *
+ * <pre>
+ * <code>FullHalfSequenceConverter converter = new FullHalfSequenceConverterBuilder()
+ *   .defaultPairs()
+ *   .pair("ヴァ", "ｳﾞｧ")
+ *   .pair("㌔", "ｷﾛ")
+ *   .build();
+ * converter.toFullwidth("ｳﾞｧｲｵﾘﾝ"); // "ヴァイオリン"</code>
+ * </pre>
+ * <p>
+ * At each position, the longest registered string is converted and the conversion continues after it. A character which
+ * starts no registered string is output as it is. The mapping table is compiled into a trie, so each position reads at most as
+ * many characters as the longest registered string and the conversion is linear to the length of the input. With only the
+ * default pairs, the result is the same as {@link DefaultFullHalf#INSTANCE}.
+ * </p>
+ * <p>
+ * This class is immutable and thread-safe.
+ * </p>
+ * @since 5.7.0
+ */
+public final class FullHalfSequenceConverter {
+
+    /**
+     * trie of fullwidth strings mapped to halfwidth.
+     */
+    private final FullHalfTrie halfwidthTrie;
+
+    /**
+     * trie of halfwidth strings mapped to fullwidth.
+     */
+    private final FullHalfTrie fullwidthTrie;
+
+    /**
+     * Constructor.
+     * @param halfwidthTrie trie of fullwidth strings mapped to halfwidth
+     * @param fullwidthTrie trie of halfwidth strings mapped to fullwidth
+     */
+    FullHalfSequenceConverter(FullHalfTrie halfwidthTrie,
+            FullHalfTrie fullwidthTrie) {
+        this.halfwidthTrie = halfwidthTrie;
+        this.fullwidthTrie = fullwidthTrie;
+    }
+
+    /**
+     * Converts from fullwidth to halfwidth as much as possible.
+     * @param fullwidth string to convert
+     * @return converted string. if the given string is null or empty, or no character is converted, returns as it is.
+     */
+    public String toHalfwidth(String fullwidth) {
+        return convert(halfwidthTrie, fullwidth);
+    }
+
+    /**
+     * Converts from fullwidth to halfwidth as much as possible and appends the result to the given {@link Appendable}.
+     * @param fullwidth characters to convert. if null or empty, nothing is appended.
+     * @param out destination
+     * @throws IOException if an I/O error occurs
+     */
+    public void toHalfwidth(CharSequence fullwidth,
+            Appendable out) throws IOException {
+        if (fullwidth != null) {
+            append(halfwidthTrie, fullwidth, 0, out);
+        }
+    }
+
+    /**
+     * Converts from halfwidth to fullwidth as much as possible.
+     * @param halfwidth string to convert
+     * @return converted string. if the given string is null or empty, or no character is converted, returns as it is.
+     */
+    public String toFullwidth(String halfwidth) {
+        return convert(fullwidthTrie, halfwidth);
+    }
+
+    /**
+     * Converts from halfwidth to fullwidth as much as possible and appends the result to the given {@link Appendable}.
+     * @param halfwidth characters to convert. if null or empty, nothing is appended.
+     * @param out destination
+     * @throws IOException if an I/O error occurs
+     */
+    public void toFullwidth(CharSequence halfwidth,
+            Appendable out) throws IOException {
+        if (halfwidth != null) {
+            append(fullwidthTrie, halfwidth, 0, out);
+        }
+    }
+
+    /**
+     * Converts the given string with the given trie.
+     * @param trie trie to match
+     * @param s string to convert
+     * @return converted string. the given instance itself if no character is converted.
+     */
+    private static String convert(FullHalfTrie trie, String s) {
+        if (s == null) {
+            return null;
+        }
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            if (trie.longestMatch(s, i, len) != 0) {
+                StringBuilder builder = new StringBuilder(len + 16);
+                builder.append(s, 0, i);
+                try {
+                    append(trie, s, i, builder);
+                } catch (IOException e) {
+                    // StringBuilder never throws IOException
+                    throw new IllegalStateException(e);
+                }
+                return builder.toString();
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Converts the given characters from the given index with the given trie and appends the result.
+     * @param trie trie to match
+     * @param s characters to convert
+     * @param start index to start
+     * @param out destination
+     * @throws IOException if an I/O error occurs
+     */
+    private static void append(FullHalfTrie trie, CharSequence s, int start,
+            Appendable out) throws IOException {
+        int len = s.length();
+        int runStart = start;
+        int i = start;
+        while (i < len) {
+            int state = trie.longestMatch(s, i, len);
+            if (state == 0) {
+                i++;
+                continue;
+            }
+            // append the unconverted characters before the match at once
+            out.append(s, runStart, i).append(trie.output(state));
+            i += trie.length(state);
+            runStart = i;
+        }
+        out.append(s, runStart, len);
+    }
+}
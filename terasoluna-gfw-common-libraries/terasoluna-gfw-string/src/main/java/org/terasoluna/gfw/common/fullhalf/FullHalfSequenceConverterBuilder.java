@@ -0,0 +1,103 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builder to create {@link FullHalfSequenceConverter}.
+ * <p>
+ * If the halfwidth or fullwidth is already registered, the former is preferred like {@link FullHalfConverter}.
+ * </p>
+ * @since 5.7.0
+ */
+public final class FullHalfSequenceConverterBuilder {
+
+    /**
+     * fullwidth of each halfwidth in the order of registration.
+     */
+    private final Map<String, String> fullwidths = new LinkedHashMap<String, String>();
+
+    /**
+     * halfwidth of each fullwidth in the order of registration.
+     */
+    private final Map<String, String> halfwidths = new LinkedHashMap<String, String>();
+
+    /**
+     * Add a pair of the given strings.
+     * @param fullwidth fullwidth of the pair. must not be null nor empty.
+     * @param halfwidth halfwidth of the pair. must not be null nor empty.
+     * @return this instance
+     * @throws IllegalArgumentException if fullwidth or halfwidth is null or empty.
+     */
+    public FullHalfSequenceConverterBuilder pair(String fullwidth,
+            String halfwidth) {
+        if (fullwidth == null || fullwidth.isEmpty()) {
+            throw new IllegalArgumentException("fullwidth must not be empty (fullwidth = "
+                    + fullwidth + ")");
+        }
+        if (halfwidth == null || halfwidth.isEmpty()) {
+            throw new IllegalArgumentException("halfwidth must not be empty (halfwidth = "
+                    + halfwidth + ")");
+        }
+        if (!fullwidths.containsKey(halfwidth)) {
+            fullwidths.put(halfwidth, fullwidth);
+        }
+        if (!halfwidths.containsKey(fullwidth)) {
+            halfwidths.put(fullwidth, halfwidth);
+        }
+        return this;
+    }
+
+    /**
+     * Add all pairs in the given {@link FullHalfPairs}. The predicate of the pairs is not used since the longest halfwidth is
+     * always matched.
+     * @param pairs pairs to add
+     * @return this instance
+     * @throws IllegalArgumentException if pairs is null
+     */
+    public FullHalfSequenceConverterBuilder pairs(FullHalfPairs pairs) {
+        if (pairs == null) {
+            throw new IllegalArgumentException("pairs must not be null.");
+        }
+        for (FullHalfPair pair : pairs.pairs()) {
+            pair(pair.fullwidth(), pair.halfwidth());
+        }
+        return this;
+    }
+
+    /**
+     * Add all pairs of the default mapping table of {@link DefaultFullHalf}.
+     * @return this instance
+     */
+    public FullHalfSequenceConverterBuilder defaultPairs() {
+        return pairs(DefaultFullHalf.PAIRS);
+    }
+
+    /**
+     * create {@link FullHalfSequenceConverter}
+     * @return {@link FullHalfSequenceConverter} instance
+     * @throws IllegalStateException if no pair is added
+     */
+    public FullHalfSequenceConverter build() {
+        if (fullwidths.isEmpty()) {
+            throw new IllegalStateException("no pair is added.");
+        }
+        return new FullHalfSequenceConverter(new FullHalfTrie(halfwidths),
+                new FullHalfTrie(fullwidths));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Mapping table of {@link FullHalfPairs} compiled into primitive char-indexed tables, used by {@link FullHalfConverter}.
+ * <p>
+ * Single chars are looked up in two-level tables indexed by the upper and the lower byte of the char. Only the pages which
+ * contain mapped chars are allocated and the others share an empty page, so that a table covering from ASCII to the halfwidth
+ * forms block stays small. Halfwidth of 2 chars like {@code "ｶﾞ"} is looked up in a sorted table of the pairs of the base char
+ * and the appendable mark. No lookup allocates objects.
+ * </p>
+ * <p>
+ * If the halfwidth or fullwidth is registered twice, the former is preferred like the former map based implementation.
+ * </p>
+ * <p>
+ * Tables are immutable, so {@link #of(Set)} shares one table among the converters created from the same pairs in the same
+ * order, such as {@link DefaultFullHalf#INSTANCE} and converters created per bean. Up to {@link #MAX_CACHED_TABLES} tables
+ * are cached and tables of the other configurations are compiled each time.
+ * </p>
+ * @since 5.7.0
+ */
+final class FullHalfTable {
+
+    /**
+     * shows no mapping is found.
+     */
+    static final int NOT_MAPPED = -1;
+
+    /**
+     * shows the halfwidth is 2 chars.
+     */
+    static final int TWO_CHARS = -2;
+
+    /**
+     * shared page of the fullwidth table which has no mapped chars.
+     */
+    private static final long[] EMPTY_HALFWIDTH_PAGE = new long[256];
+
+    /**
+     * shared page of the halfwidth table which has no mapped chars.
+     */
+    private static final int[] EMPTY_FULLWIDTH_PAGE = new int[256];
+
+    /**
+     * max number of the cached tables.
+     */
+    static final int MAX_CACHED_TABLES = 64;
+
+    /**
+     * compiled tables keyed by the pairs in the order of iteration.
+     */
+    private static final ConcurrentMap<List<FullHalfPair>, FullHalfTable> CACHE = new ConcurrentHashMap<List<FullHalfPair>, FullHalfTable>();
+
+    /**
+     * halfwidth of each fullwidth char. an entry is {@code 0} if not mapped, otherwise the length (1 or 2) in bits 32-33, the
+     * second char in bits 16-31 and the first char in bits 0-15.
+     */
+    private final long[][] halfwidthPages;
+
+    /**
+     * fullwidth of each 1 char halfwidth. an entry is {@code 0} if not mapped, otherwise the fullwidth char with bit 16 set.
+     */
+    private final int[][] fullwidthPages;
+
+    /**
+     * sorted keys of the 2 chars halfwidth, that is {@code (first << 16 | second)}.
+     */
+    private final int[] combinedKeys;
+
+    /**
+     * fullwidth of the 2 chars halfwidth in the same order as {@link #combinedKeys}.
+     */
+    private final char[] combinedFullwidths;
+
+    /**
+     * Constructor.
+     * @param pairs pairs of fullwidth and halfwidth
+     */
+    FullHalfTable(Collection<FullHalfPair> pairs) {
+        long[][] h = new long[256][];
+        int[][] f = new int[256][];
+        int[] keys = new int[pairs.size()];
+        char[] values = new char[pairs.size()];
+        int n = 0;
+        for (FullHalfPair pair : pairs) {
+            char full = pair.fullwidth().charAt(0);
+            String half = pair.halfwidth();
+            long[] hp = page(h, full);
+            // first definition is prior
+            if (hp[full & 0xFF] == 0) {
+                long entry = (long) half.length() << 32 | half.charAt(0);
+                if (half.length() == 2) {
+                    entry |= (long) half.charAt(1) << 16;
+                }
+                hp[full & 0xFF] = entry;
+            }
+            if (half.length() == 1) {
+                char c = half.charAt(0);
+                int[] fp = page(f, c);
+                if (fp[c & 0xFF] == 0) {
+                    fp[c & 0xFF] = 1 << 16 | full;
+                }
+            } else {
+                int key = half.charAt(0) << 16 | half.charAt(1);
+                if (indexOf(keys, n, key) < 0) {
+                    keys[n] = key;
+                    values[n] = full;
+                    n++;
+                }
+            }
+        }
+        for (int i = 0; i < 256; i++) {
+            if (h[i] == null) {
+                h[i] = EMPTY_HALFWIDTH_PAGE;
+            }
+            if (f[i] == null) {
+                f[i] = EMPTY_FULLWIDTH_PAGE;
+            }
+        }
+        this.halfwidthPages = h;
+        this.fullwidthPages = f;
+        this.combinedKeys = new int[n];
+        this.combinedFullwidths = new char[n];
+        // sort by key in signed order for Arrays.binarySearch keeping the values aligned
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = (long) keys[i] << 16 | values[i];
+        }
+        Arrays.sort(sorted);
+        for (int i = 0; i < n; i++) {
+            this.combinedKeys[i] = (int) (sorted[i] >> 16);
+            this.combinedFullwidths[i] = (char) sorted[i];
+        }
+    }
+
+    /**
+     * returns the compiled table of the given pairs, shared if the same pairs have been compiled.
+     * @param pairs pairs of fullwidth and halfwidth
+     * @return compiled table
+     */
+    static FullHalfTable of(Set<FullHalfPair> pairs) {
+        // copy the pairs so that the key is not changed by the modification of the given set
+        List<FullHalfPair> key = new ArrayList<FullHalfPair>(pairs);
+        FullHalfTable table = CACHE.get(key);
+        if (table != null) {
+            return table;
+        }
+        table = new FullHalfTable(key);
+        if (CACHE.size() >= MAX_CACHED_TABLES) {
+            return table;
+        }
+        FullHalfTable cached = CACHE.putIfAbsent(key, table);
+        return cached != null ? cached : table;
+    }
+
+    /**
+     * returns whether the given fullwidth char is mapped.
+     * @param c fullwidth char
+     * @return {@code true} if mapped
+     */
+    boolean hasHalfwidth(char c) {
+        return halfwidthPages[c >>> 8][c & 0xFF] != 0;
+    }
+
+    /**
+     * returns the halfwidth of the given fullwidth char if it is 1 char.
+     * @param c fullwidth char
+     * @return halfwidth char. {@link #NOT_MAPPED} if not mapped, {@link #TWO_CHARS} if the halfwidth is 2 chars.
+     */
+    int halfwidth(char c) {
+        long entry = halfwidthPages[c >>> 8][c & 0xFF];
+        if (entry == 0) {
+            return NOT_MAPPED;
+        }
+        return (entry >>> 32) == 1 ? (char) entry : TWO_CHARS;
+    }
+
+    /**
+     * append the halfwidth of the given fullwidth char, or the char itself if not mapped.
+     * @param c fullwidth char
+     * @param out destination
+     * @throws IOException if an I/O error occurs
+     */
+    void appendHalfwidth(char c, Appendable out) throws IOException {
+        long entry = halfwidthPages[c >>> 8][c & 0xFF];
+        if (entry == 0) {
+            out.append(c);
+            return;
+        }
+        out.append((char) entry);
+        if ((entry >>> 32) == 2) {
+            out.append((char) (entry >>> 16));
+        }
+    }
+
+    /**
+     * returns the fullwidth of the given 1 char halfwidth.
+     * @param c halfwidth char
+     * @return fullwidth char. {@link #NOT_MAPPED} if not mapped.
+     */
+    int fullwidth(char c) {
+        int entry = fullwidthPages[c >>> 8][c & 0xFF];
+        return entry == 0 ? NOT_MAPPED : (char) entry;
+    }
+
+    /**
+     * returns the fullwidth of the given 2 chars halfwidth.
+     * @param first first char of the halfwidth
+     * @param second second char of the halfwidth
+     * @return fullwidth char. {@link #NOT_MAPPED} if not mapped.
+     */
+    int fullwidth(char first, char second) {
+        int index = Arrays.binarySearch(combinedKeys, first << 16 | second);
+        return index < 0 ? NOT_MAPPED : combinedFullwidths[index];
+    }
+
+    /**
+     * returns the page of the given char allocating it if absent.
+     * @param pages pages
+     * @param c char
+     * @return page
+     */
+    private static long[] page(long[][] pages, char c) {
+        long[] p = pages[c >>> 8];
+        if (p == null) {
+            p = new long[256];
+            pages[c >>> 8] = p;
+        }
+        return p;
+    }
+
+    /**
+     * returns the page of the given char allocating it if absent.
+     * @param pages pages
+     * @param c char
+     * @return page
+     */
+    private static int[] page(int[][] pages, char c) {
+        int[] p = pages[c >>> 8];
+        if (p == null) {
+            p = new int[256];
+            pages[c >>> 8] = p;
+        }
+        return p;
+    }
+
+    /**
+     * returns the index of the given key in the unsorted keys.
+     * @param keys keys
+     * @param n number of the keys
+     * @param key key to find
+     * @return index. {@code -1} if not found.
+     */
+    private static int indexOf(int[] keys, int n, int key) {
+        for (int i = 0; i < n; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trie of the source strings of a mapping compiled into arrays, used by {@link FullHalfSequenceConverter} to find the longest
+ * match.
+ * <p>
+ * Each state is numbered and the root is {@code 0}. Transitions from the root are looked up in two-level tables indexed by the
+ * upper and the lower byte of the char like {@link FullHalfTable}, and the other transitions by binary search in the sorted
+ * labels of the state. A match reads at most {@link #maxLength()} chars, so conversion is linear to the length of the input.
+ * </p>
+ * @since 5.7.0
+ */
+final class FullHalfTrie {
+
+    /**
+     * shared page of the root transitions which has no transition.
+     */
+    private static final int[] EMPTY_PAGE = new int[256];
+
+    /**
+     * states of the transitions from the root. an entry is {@code 0} if no transition.
+     */
+    private final int[][] rootPages;
+
+    /**
+     * sorted labels of the transitions from each state.
+     */
+    private final char[][] labels;
+
+    /**
+     * states of the transitions from each state in the same order as {@link #labels}.
+     */
+    private final int[][] targets;
+
+    /**
+     * mapped string of each state. {@code null} if the state does not accept.
+     */
+    private final String[] outputs;
+
+    /**
+     * the number of chars from the root to each state.
+     */
+    private final int[] depths;
+
+    /**
+     * the length of the longest source string.
+     */
+    private final int maxLength;
+
+    /**
+     * Constructor.
+     * @param mappings mapped string of each source string. all source strings must not be empty.
+     */
+    FullHalfTrie(Map<String, String> mappings) {
+        Node root = new Node(0);
+        int max = 0;
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            String source = mapping.getKey();
+            Node node = root;
+            for (int i = 0; i < source.length(); i++) {
+                Node child = node.children.get(source.charAt(i));
+                if (child == null) {
+                    child = new Node(i + 1);
+                    node.children.put(source.charAt(i), child);
+                }
+                node = child;
+            }
+            node.output = mapping.getValue();
+            max = Math.max(max, source.length());
+        }
+        // number the states in breadth-first order
+        List<Node> nodes = new ArrayList<Node>();
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).state = i;
+            nodes.addAll(nodes.get(i).children.values());
+        }
+        this.labels = new char[nodes.size()][];
+        this.targets = new int[nodes.size()][];
+        this.outputs = new String[nodes.size()];
+        this.depths = new int[nodes.size()];
+        for (Node node : nodes) {
+            char[] l = new char[node.children.size()];
+            int[] t = new int[l.length];
+            int k = 0;
+            for (Map.Entry<Character, Node> child : node.children
+                    .entrySet()) {
+                l[k] = child.getKey();
+                t[k] = child.getValue().state;
+                k++;
+            }
+            labels[node.state] = l;
+            targets[node.state] = t;
+            outputs[node.state] = node.output;
+            depths[node.state] = node.depth;
+        }
+        int[][] pages = new int[256][];
+        for (Map.Entry<Character, Node> child : root.children.entrySet()) {
+            char c = child.getKey();
+            if (pages[c >>> 8] == null) {
+                pages[c >>> 8] = new int[256];
+            }
+            pages[c >>> 8][c & 0xFF] = child.getValue().state;
+        }
+        for (int i = 0; i < 256; i++) {
+            if (pages[i] == null) {
+                pages[i] = EMPTY_PAGE;
+            }
+        }
+        this.rootPages = pages;
+        this.maxLength = max;
+    }
+
+    /**
+     * returns the accepting state of the longest source string which starts at the given index.
+     * @param s chars
+     * @param index index to start
+     * @param end index after the last char to read
+     * @return accepting state. {@code 0} if no source string matches.
+     */
+    int longestMatch(CharSequence s, int index, int end) {
+        char c = s.charAt(index);
+        int state = rootPages[c >>> 8][c & 0xFF];
+        int matched = 0;
+        int i = index + 1;
+        while (state != 0) {
+            if (outputs[state] != null) {
+                matched = state;
+            }
+            if (i == end) {
+                break;
+            }
+            int k = Arrays.binarySearch(labels[state], s.charAt(i));
+            state = k < 0 ? 0 : targets[state][k];
+            i++;
+        }
+        return matched;
+    }
+
+    /**
+     * returns the mapped string of the given accepting state.
+     * @param state accepting state
+     * @return mapped string
+     */
+    String output(int state) {
+        return outputs[state];
+    }
+
+    /**
+     * returns the length of the source string of the given state.
+     * @param state state
+     * @return the number of chars
+     */
+    int length(int state) {
+        return depths[state];
+    }
+
+    /**
+     * returns the length of the longest source string, which is the max number of chars read by a match.
+     * @return the number of chars
+     */
+    int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * node of the trie while building.
+     */
+    private static final class Node {
+
+        /**
+         * children sorted by label.
+         */
+        private final TreeMap<Character, Node> children = new TreeMap<Character, Node>();
+
+        /**
+         * the number of chars from the root.
+         */
+        private final int depth;
+
+        /**
+         * mapped string. {@code null} if not accepting.
+         */
+        private String output;
+
+        /**
+         * state number.
+         */
+        private int state;
+
+        /**
+         * Constructor.
+         * @param depth the number of chars from the root
+         */
+        Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * {@link Writer} which converts written characters with {@link FullHalfConverter} and writes them to the underlying writer.
+ *
+ * <pre>
+ * <code>try (Writer writer = FullHalfWriter.toFullwidth(out, DefaultFullHalf.INSTANCE)) {
+ *     writer.write("ｶ");
+ *     writer.write("ﾞ"); // "ガ" is written
+ * }</code>
+ * </pre>
+ * <p>
+ * Characters are converted incrementally with bounded buffers, so the memory usage does not depend on the size of the
+ * input. When converting to fullwidth, the last written character is kept until the next write or {@link #close()} since it
+ * may be combined with an appendable character like 'ﾞ' or 'ﾟ' which follows. {@link #flush()} does not write the kept
+ * character. This class is not thread-safe.
+ * </p>
+ * @since 5.7.0
+ */
+public final class FullHalfWriter extends FilterWriter {
+
+    /**
+     * max number of characters converted at once.
+     */
+    static final int BUFFER_SIZE = 4096;
+
+    /**
+     * converter.
+     */
+    private final FullHalfConverter converter;
+
+    /**
+     * whether to convert to fullwidth or halfwidth.
+     */
+    private final boolean fullwidth;
+
+    /**
+     * converted characters not written yet.
+     */
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE * 2
+            + 2);
+
+    /**
+     * array to copy the converted characters to write.
+     */
+    private final char[] chars = new char[BUFFER_SIZE * 2 + 2];
+
+    /**
+     * the kept character and the first character of the next write.
+     */
+    private final char[] pending = new char[2];
+
+    /**
+     * the number of the kept characters, {@code 0} or {@code 1}.
+     */
+    private int pendingLength;
+
+    /**
+     * Constructor.
+     * @param out writer to write converted characters
+     * @param converter converter
+     * @param fullwidth {@code true} to convert to fullwidth, {@code false} to convert to halfwidth
+     */
+    private FullHalfWriter(Writer out, FullHalfConverter converter,
+            boolean fullwidth) {
+        super(out);
+        this.converter = converter;
+        this.fullwidth = fullwidth;
+    }
+
+    /**
+     * Create a writer which converts written characters to fullwidth.
+     * @param out writer to write converted characters
+     * @param converter converter
+     * @return converting writer
+     * @throws IllegalArgumentException if {@code out} or {@code converter} is {@code null}
+     */
+    public static FullHalfWriter toFullwidth(Writer out,
+            FullHalfConverter converter) {
+        return create(out, converter, true);
+    }
+
+    /**
+     * Create a writer which converts written characters to halfwidth.
+     * @param out writer to write converted characters
+     * @param converter converter
+     * @return converting writer
+     * @throws IllegalArgumentException if {@code out} or {@code converter} is {@code null}
+     */
+    public static FullHalfWriter toHalfwidth(Writer out,
+            FullHalfConverter converter) {
+        return create(out, converter, false);
+    }
+
+    /**
+     * Create a writer.
+     * @param out writer to write converted characters
+     * @param converter converter
+     * @param fullwidth {@code true} to convert to fullwidth, {@code false} to convert to halfwidth
+     * @return converting writer
+     */
+    private static FullHalfWriter create(Writer out,
+            FullHalfConverter converter, boolean fullwidth) {
+        if (out == null) {
+            throw new IllegalArgumentException("out must not be null.");
+        }
+        if (converter == null) {
+            throw new IllegalArgumentException("converter must not be null.");
+        }
+        return new FullHalfWriter(out, converter, fullwidth);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(int c) throws IOException {
+        write(new char[] { (char) c }, 0, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        writeConverted(CharBuffer.wrap(cbuf, off, len), 0, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        writeConverted(str, off, off + len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (pendingLength > 0) {
+            pendingLength = 0;
+            converter.appendFullwidth(CharBuffer.wrap(pending, 0, 1), 0, 1,
+                    true, buffer);
+            writeBuffer();
+        }
+        super.close();
+    }
+
+    /**
+     * Convert the given range of characters and write them.
+     * @param s characters to write
+     * @param start index of the first character
+     * @param end index after the last character
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeConverted(CharSequence s, int start,
+            int end) throws IOException {
+        int i = start;
+        if (i < end && pendingLength > 0) {
+            // convert the kept character, combined with the first character if it is appendable
+            pending[1] = s.charAt(i);
+            pendingLength = 0;
+            if (converter.appendFullwidth(CharBuffer.wrap(pending), 0, 2,
+                    false, buffer) == 2) {
+                i++;
+            }
+        }
+        while (i < end) {
+            int sliceEnd = Math.min(end, i + BUFFER_SIZE);
+            if (fullwidth) {
+                i = converter.appendFullwidth(s, i, sliceEnd, false, buffer);
+                if (i == end - 1) {
+                    // keep the last character to combine with the next write
+                    pending[0] = s.charAt(i);
+                    pendingLength = 1;
+                    i = end;
+                }
+            } else {
+                converter.appendHalfwidth(s, i, sliceEnd, buffer);
+                i = sliceEnd;
+            }
+            writeBuffer();
+        }
+        writeBuffer();
+    }
+
+    /**
+     * write the converted characters to the underlying writer.
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeBuffer() throws IOException {
+        int length = buffer.length();
+        if (length > 0) {
+            buffer.getChars(0, length, chars, 0);
+            out.write(chars, 0, length);
+            buffer.setLength(0);
+        }
+    }
+}
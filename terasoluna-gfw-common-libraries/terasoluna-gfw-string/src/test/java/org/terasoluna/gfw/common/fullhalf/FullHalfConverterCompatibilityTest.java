@@ -0,0 +1,132 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks that {@link FullHalfConverter} converts exactly same as {@link LegacyFullHalfConverter}.
+ */
+@RunWith(Parameterized.class)
+public class FullHalfConverterCompatibilityTest {
+
+    private static final FullHalfPairs DEFAULT_PAIRS = defaultPairs();
+
+    private static final FullHalfPairs CUSTOM_PAIRS = new FullHalfPairsBuilder()
+            .pair("バ", "ﾊﾞ").pair("ハ", "ﾊ").pair("゛", "ﾞ").pair("゜", "ﾟ")
+            .pair("ヴ", "ｳﾞ").pair("ア", "ｱ").pair("ア", "a").pair("ｱ", "ｱ")
+            .appendablePredicate(c -> c == 'ﾞ' || c == 'a').build();
+
+    private final String name;
+
+    private final FullHalfPairs pairs;
+
+    private final String input;
+
+    public FullHalfConverterCompatibilityTest(String name, FullHalfPairs pairs,
+            String input) {
+        this.name = name;
+        this.pairs = pairs;
+        this.input = input;
+    }
+
+    @Parameters(name = "{0}: {2}")
+    public static List<Object[]> parameters() {
+        List<String> inputs = new ArrayList<String>(Arrays.asList("", "ｶﾞ",
+                "ﾞﾞﾞ", "ｶﾞﾞ", "ｶﾞﾟ", "ｱﾞ", "ﾊﾟﾋﾟﾌﾟ", "ｳﾞｧ", "Aﾞ", "ﾞｶ", "ｶﾞｷﾞｸﾞ",
+                "ﾜﾞｦﾞ", "ｶ", "ｶﾞｶ", "完熟ﾒﾛﾝﾊﾟﾝ", "ﾊﾛｰﾜｰﾙﾄﾞ!", "Hello World!",
+                "ﾊaﾊﾞaﾞ", "ｱaｱ", "ガ", "ＡＢＣ　ａｂｃ"));
+        String alphabet = "ｱｶｳﾊﾜｦﾞﾟaA1 !ｰあ漢ﾊﾋﾌﾍﾎ";
+        Random random = new Random(0);
+        for (int n = 0; n < 200; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(12);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            inputs.add(sb.toString());
+        }
+        List<Object[]> parameters = new ArrayList<Object[]>();
+        for (String input : inputs) {
+            parameters.add(new Object[] { "default", DEFAULT_PAIRS, input });
+            parameters.add(new Object[] { "custom", CUSTOM_PAIRS, input });
+        }
+        return parameters;
+    }
+
+    @Test
+    public void testToFullwidth() {
+        assertThat(name, new FullHalfConverter(pairs).toFullwidth(input), is(
+                new LegacyFullHalfConverter(pairs).toFullwidth(input)));
+    }
+
+    @Test
+    public void testToHalfwidth() {
+        String fullwidth = new LegacyFullHalfConverter(pairs).toFullwidth(
+                input);
+
+        assertThat(name, new FullHalfConverter(pairs).toHalfwidth(fullwidth),
+                is(new LegacyFullHalfConverter(pairs).toHalfwidth(fullwidth)));
+    }
+
+    @Test
+    public void testToFullwidthInPlace() {
+        // surround the input to check that only the range is converted
+        char[] chars = ("ｱ" + input + "ｶ").toCharArray();
+
+        CharBuffer converted = new FullHalfConverter(pairs).toFullwidthInPlace(
+                chars, 1, input.length());
+
+        assertThat(name, converted.toString(), is(new LegacyFullHalfConverter(pairs)
+                .toFullwidth(input)));
+        assertThat(chars[0], is('ｱ'));
+        assertThat(chars[chars.length - 1], is('ｶ'));
+    }
+
+    @Test
+    public void testToHalfwidthInPlace() {
+        String fullwidth = new LegacyFullHalfConverter(pairs).toFullwidth(
+                input);
+
+        CharBuffer converted = new FullHalfConverter(pairs).toHalfwidthInPlace(
+                fullwidth.toCharArray(), 0, fullwidth.length());
+
+        assertThat(name, converted.toString(), is(new LegacyFullHalfConverter(pairs)
+                .toHalfwidth(fullwidth)));
+    }
+
+    private static FullHalfPairs defaultPairs() {
+        FullHalfPairsBuilder builder = new FullHalfPairsBuilder();
+        for (Map.Entry<String, String> entry : new DefaultFullHalfCodePointsMap()
+                .entrySet()) {
+            builder.pair(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+}
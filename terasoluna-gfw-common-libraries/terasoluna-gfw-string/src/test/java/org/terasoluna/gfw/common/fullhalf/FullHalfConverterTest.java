@@ -16,9 +16,15 @@
 package org.terasoluna.gfw.common.fullhalf;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertThrows;
 
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.nio.ReadOnlyBufferException;
+
 import org.junit.Test;
 
 public class FullHalfConverterTest {
@@ -69,4 +75,99 @@ public class FullHalfConverterTest {
                 () -> new FullHalfConverter(null));
         assertThat(ex.getMessage(), is("pairs must not be null."));
     }
+
+    @Test
+    public void testToHalfwidth_sameInstanceIfNotChanged() {
+        String s = "abc-ｱｲｳ";
+
+        assertThat(DefaultFullHalf.INSTANCE.toHalfwidth(s), sameInstance(s));
+        assertThat(DefaultFullHalf.INSTANCE.toHalfwidth("abcア"), is("abcｱ"));
+    }
+
+    @Test
+    public void testToFullwidth_sameInstanceIfNotChanged() {
+        String s = "あいう亜ＡＢＣ";
+
+        assertThat(DefaultFullHalf.INSTANCE.toFullwidth(s), sameInstance(s));
+        assertThat(DefaultFullHalf.INSTANCE.toFullwidth("あいｶﾞ"), is("あいガ"));
+        // the first change is the voiced mark after an unmapped character
+        assertThat(DefaultFullHalf.INSTANCE.toFullwidth("あﾞ"), is("あ゛"));
+    }
+
+    @Test
+    public void testToHalfwidth_appendable() throws Exception {
+        StringWriter sw = new StringWriter();
+        StringBuilder sb = new StringBuilder("x:");
+
+        DefaultFullHalf.INSTANCE.toHalfwidth(new StringBuilder("ガギ あaＡ"), sw);
+        DefaultFullHalf.INSTANCE.toHalfwidth(CharBuffer.wrap("アイウ"
+                .toCharArray(), 1, 2), sb);
+        DefaultFullHalf.INSTANCE.toHalfwidth(null, sb);
+
+        assertThat(sw.toString(), is("ｶﾞｷﾞ あaA"));
+        assertThat(sb.toString(), is("x:ｲｳ"));
+    }
+
+    @Test
+    public void testToFullwidth_appendable() throws Exception {
+        StringWriter sw = new StringWriter();
+        StringBuilder sb = new StringBuilder("x:");
+
+        DefaultFullHalf.INSTANCE.toFullwidth(new StringBuilder("ｶﾞｷﾞ あaA"), sw);
+        DefaultFullHalf.INSTANCE.toFullwidth(CharBuffer.wrap("ｱｲｳﾞ"
+                .toCharArray(), 2, 2), sb);
+        DefaultFullHalf.INSTANCE.toFullwidth("", sb);
+
+        assertThat(sw.toString(), is("ガギ　あａＡ"));
+        assertThat(sb.toString(), is("x:ヴ"));
+    }
+
+    @Test
+    public void testToHalfwidthInPlace() {
+        char[] chars = "ＡＢＣ　あ".toCharArray();
+
+        CharBuffer converted = DefaultFullHalf.INSTANCE.toHalfwidthInPlace(
+                chars, 1, 3);
+
+        // converted in the given array
+        assertThat(converted.array(), sameInstance(chars));
+        assertThat(converted.toString(), is("BC "));
+        assertThat(new String(chars), is("ＡBC あ"));
+    }
+
+    @Test
+    public void testToHalfwidthInPlace_expanded() {
+        CharBuffer buffer = CharBuffer.wrap("aガギb".toCharArray());
+
+        CharBuffer converted = DefaultFullHalf.INSTANCE.toHalfwidthInPlace(
+                buffer);
+
+        assertThat(converted, not(sameInstance(buffer)));
+        assertThat(converted.toString(), is("aｶﾞｷﾞb"));
+        assertThat(converted.isReadOnly(), is(false));
+    }
+
+    @Test
+    public void testToFullwidthInPlace_combined() {
+        CharBuffer buffer = CharBuffer.wrap("xｶﾞｷﾞAﾟy".toCharArray());
+        buffer.position(1);
+
+        CharBuffer converted = DefaultFullHalf.INSTANCE.toFullwidthInPlace(
+                buffer);
+
+        assertThat(converted, sameInstance(buffer));
+        assertThat(converted.position(), is(1));
+        assertThat(converted.limit(), is(6));
+        assertThat(converted.toString(), is("ガギＡ゜ｙ"));
+    }
+
+    @Test
+    public void testInPlace_readOnly() {
+        CharBuffer buffer = CharBuffer.wrap("abc");
+
+        assertThrows(ReadOnlyBufferException.class,
+                () -> DefaultFullHalf.INSTANCE.toFullwidthInPlace(buffer));
+        assertThrows(ReadOnlyBufferException.class,
+                () -> DefaultFullHalf.INSTANCE.toHalfwidthInPlace(buffer));
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FullHalfReaderTest {
+
+    @Test
+    public void testToFullwidth_voicedMarkInNextRead() throws Exception {
+        Reader reader = FullHalfReader.toFullwidth(new ChunkedReader("ｱｶﾞﾊﾟﾞｷ",
+                new Random(0)), DefaultFullHalf.INSTANCE);
+
+        assertThat(readAll(reader, 1), is("アガパ゛キ"));
+        assertThat(reader.read(), is(-1));
+    }
+
+    @Test
+    public void testToFullwidth_sameAsConverter() throws Exception {
+        Random random = new Random(0);
+        String s = FullHalfWriterTest.randomHalfwidth(random,
+                FullHalfReader.BUFFER_SIZE * 3);
+
+        assertThat(readAll(FullHalfReader.toFullwidth(new StringReader(s),
+                DefaultFullHalf.INSTANCE), 100), is(DefaultFullHalf.INSTANCE
+                        .toFullwidth(s)));
+        assertThat(readAll(FullHalfReader.toFullwidth(new ChunkedReader(s,
+                random), DefaultFullHalf.INSTANCE), 7), is(
+                        DefaultFullHalf.INSTANCE.toFullwidth(s)));
+    }
+
+    @Test
+    public void testToHalfwidth() throws Exception {
+        Random random = new Random(0);
+        String s = DefaultFullHalf.INSTANCE.toFullwidth(FullHalfWriterTest
+                .randomHalfwidth(random, FullHalfReader.BUFFER_SIZE * 3));
+
+        try (Reader reader = FullHalfReader.toHalfwidth(new ChunkedReader(s,
+                random), DefaultFullHalf.INSTANCE)) {
+            assertThat(readAll(reader, FullHalfReader.BUFFER_SIZE * 3), is(
+                    DefaultFullHalf.INSTANCE.toHalfwidth(s)));
+        }
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        Reader reader = FullHalfReader.toFullwidth(new StringReader("ｶﾞｷﾞｸﾞ"),
+                DefaultFullHalf.INSTANCE);
+
+        assertThat(reader.skip(2), is(2L));
+        assertThat(readAll(reader, 10), is("グ"));
+    }
+
+    @Test
+    public void testCreate_null() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> FullHalfReader
+                        .toFullwidth(null, DefaultFullHalf.INSTANCE));
+        assertThat(ex.getMessage(), is("in must not be null."));
+        ex = assertThrows(IllegalArgumentException.class,
+                () -> FullHalfReader.toHalfwidth(new StringReader(""), null));
+        assertThat(ex.getMessage(), is("converter must not be null."));
+    }
+
+    private static String readAll(Reader reader,
+            int bufferSize) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] cbuf = new char[bufferSize];
+        int n;
+        while ((n = reader.read(cbuf, 0, bufferSize)) >= 0) {
+            sb.append(cbuf, 0, n);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@link Reader} which returns a few characters at a time.
+     */
+    private static final class ChunkedReader extends Reader {
+
+        private final String s;
+
+        private final Random random;
+
+        private int position;
+
+        ChunkedReader(String s, Random random) {
+            this.s = s;
+            this.random = random;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (position == s.length()) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, 1 + random.nextInt(3)), s.length()
+                    - position);
+            s.getChars(position, position + n, cbuf, off);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class FullHalfRecordConverterTest {
+
+    @Test
+    public void testConvert_record() {
+        FullHalfRecordConverter recordConverter = FullHalfRecordConverter
+                .toFullwidth(DefaultFullHalf.INSTANCE, 1, 3);
+        String[] record = { "ｱ", "ｶﾞ", "ｻ", "ﾀ" };
+
+        String[] converted = recordConverter.convert(record);
+
+        assertThat(converted, is(new String[] { "ｱ", "ガ", "ｻ", "タ" }));
+        // the given record is not modified
+        assertThat(record, is(new String[] { "ｱ", "ｶﾞ", "ｻ", "ﾀ" }));
+    }
+
+    @Test
+    public void testConvert_duplicateColumns() throws Exception {
+        FullHalfRecordConverter recordConverter = FullHalfRecordConverter
+                .toFullwidth(DefaultFullHalf.INSTANCE, 3, 1, 1, 3);
+        String[] record = { "ｱ", "ｶﾞ", "ｻ", "ﾀ" };
+
+        String[] converted = recordConverter.convert(record);
+
+        assertThat(converted, is(FullHalfRecordConverter.toFullwidth(
+                DefaultFullHalf.INSTANCE, 1, 3).convert(record)));
+        assertThat(converted, is(new String[] { "ｱ", "ガ", "ｻ", "タ" }));
+        // each column is converted once
+        Field columns = FullHalfRecordConverter.class.getDeclaredField(
+                "columns");
+        columns.setAccessible(true);
+        assertThat(columns.get(recordConverter), is(new int[] { 1, 3 }));
+    }
+
+    @Test
+    public void testConvert_sameInstanceIfNotChanged() {
+        FullHalfRecordConverter recordConverter = FullHalfRecordConverter
+                .toHalfwidth(DefaultFullHalf.INSTANCE, 0, 5);
+        String[] record = { "abc", "ア", null };
+        String[] shorter = { null };
+
+        assertThat(recordConverter.convert(record), sameInstance(record));
+        assertThat(recordConverter.convert(shorter), sameInstance(shorter));
+        assertThat(recordConverter.convert((String[]) null), is(nullValue()));
+    }
+
+    @Test
+    public void testConvert_allColumns() {
+        FullHalfRecordConverter recordConverter = FullHalfRecordConverter
+                .toHalfwidth(DefaultFullHalf.INSTANCE);
+
+        assertThat(recordConverter.convert(new String[] { "ア", "Ａ", null }),
+                is(new String[] { "ｱ", "A", null }));
+    }
+
+    @Test
+    public void testConvert_listInParallel() {
+        // small chunks to split into many tasks
+        FullHalfRecordConverter recordConverter = new FullHalfRecordConverter(DefaultFullHalf.INSTANCE, true, new int[] {
+                0, 2 }, 16);
+        Random random = new Random(0);
+        List<String[]> records = new ArrayList<String[]>();
+        for (int i = 0; i < 1000; i++) {
+            records.add(new String[] { FullHalfWriterTest.randomHalfwidth(
+                    random, random.nextInt(8)), "ｱ" + i, i % 7 == 0 ? null
+                            : FullHalfWriterTest.randomHalfwidth(random, 4) });
+        }
+
+        List<String[]> converted = recordConverter.convert(
+                new LinkedList<String[]>(records));
+
+        assertThat(converted.size(), is(records.size()));
+        for (int i = 0; i < records.size(); i++) {
+            String[] record = records.get(i);
+            assertThat(converted.get(i), is(new String[] {
+                    DefaultFullHalf.INSTANCE.toFullwidth(record[0]), "ｱ" + i,
+                    DefaultFullHalf.INSTANCE.toFullwidth(record[2]) }));
+        }
+    }
+
+    @Test
+    public void testConvert_stream() {
+        FullHalfRecordConverter recordConverter = FullHalfRecordConverter
+                .toFullwidth(DefaultFullHalf.INSTANCE, 0);
+        List<String[]> records = Arrays.asList(new String[] { "ｱ" },
+                new String[] { "ｲ" }, new String[] { "ｳ" });
+
+        List<String> converted = recordConverter.convert(records
+                .parallelStream()).map(r -> r[0]).collect(Collectors.toList());
+
+        assertThat(converted, is(Arrays.asList("ア", "イ", "ウ")));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> FullHalfRecordConverter
+                        .toFullwidth(null));
+        assertThat(ex.getMessage(), is("converter must not be null."));
+        ex = assertThrows(IllegalArgumentException.class,
+                () -> FullHalfRecordConverter.toFullwidth(
+                        DefaultFullHalf.INSTANCE, 0, -1));
+        assertThat(ex.getMessage(), is(
+                "column must be greater than or equal to 0 (column = -1)"));
+        ex = assertThrows(IllegalArgumentException.class,
+                () -> FullHalfRecordConverter.toHalfwidth(
+                        DefaultFullHalf.INSTANCE).convert((List<String[]>) null));
+        assertThat(ex.getMessage(), is("records must not be null."));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FullHalfSequenceConverterTest {
+
+    private final FullHalfSequenceConverter converter = new FullHalfSequenceConverterBuilder()
+            .defaultPairs().pair("ヴァ", "ｳﾞｧ").pair("㌔", "ｷﾛ").pair("㌔グラム",
+                    "ｷﾛｸﾞﾗﾑ").build();
+
+    @Test
+    public void testToFullwidth_longestMatch() {
+        assertThat(converter.toFullwidth("ｳﾞｧｲｵﾘﾝ"), is("ヴァイオリン"));
+        assertThat(converter.toFullwidth("ｳﾞｨ"), is("ヴィ"));
+        assertThat(converter.toFullwidth("1ｷﾛｸﾞﾗﾑ"), is("１㌔グラム"));
+        // falls back to the longest prefix which matches
+        assertThat(converter.toFullwidth("1ｷﾛｸﾞﾗ"), is("１㌔グラ"));
+    }
+
+    @Test
+    public void testToHalfwidth_longestMatch() {
+        assertThat(converter.toHalfwidth("ヴァイオリン"), is("ｳﾞｧｲｵﾘﾝ"));
+        assertThat(converter.toHalfwidth("１㌔グラム"), is("1ｷﾛｸﾞﾗﾑ"));
+    }
+
+    @Test
+    public void testSameInstanceIfNotChanged() {
+        String s = "漢字とひらがな";
+
+        assertThat(converter.toFullwidth(s), sameInstance(s));
+        assertThat(converter.toHalfwidth(s), sameInstance(s));
+        assertThat(converter.toFullwidth(null), is(nullValue()));
+        assertThat(converter.toHalfwidth(""), is(""));
+    }
+
+    @Test
+    public void testAppendable() throws Exception {
+        StringWriter sw = new StringWriter();
+
+        converter.toFullwidth(new StringBuilder("ｳﾞｧ "), sw);
+        converter.toHalfwidth("ヴァ", sw);
+        converter.toHalfwidth(null, sw);
+
+        assertThat(sw.toString(), is("ヴァ　ｳﾞｧ"));
+    }
+
+    @Test
+    public void testFormerPreferred() {
+        FullHalfSequenceConverter c = new FullHalfSequenceConverterBuilder()
+                .pair("ー", "-").pair("－", "-").pair("ー", "ｰ").build();
+
+        assertThat(c.toFullwidth("-ｰ"), is("ーー"));
+        assertThat(c.toHalfwidth("ー－"), is("--"));
+    }
+
+    @Test
+    public void testSameAsDefaultFullHalf() {
+        FullHalfSequenceConverter c = new FullHalfSequenceConverterBuilder()
+                .defaultPairs().build();
+        String alphabet = "ｱｶｳﾊﾜｦﾞﾟaA1 !ｰあ漢ﾊﾋﾌﾍﾎアガパ゛Ａ　ヴ";
+        Random random = new Random(0);
+        for (int n = 0; n < 1000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(12);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = sb.toString();
+            assertThat(s, c.toFullwidth(s), is(DefaultFullHalf.INSTANCE
+                    .toFullwidth(s)));
+            assertThat(s, c.toHalfwidth(s), is(DefaultFullHalf.INSTANCE
+                    .toHalfwidth(s)));
+        }
+    }
+
+    @Test
+    public void testBuilder_invalid() {
+        FullHalfSequenceConverterBuilder builder = new FullHalfSequenceConverterBuilder();
+
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> builder.pair("", "a"));
+        assertThat(ex.getMessage(), is(
+                "fullwidth must not be empty (fullwidth = )"));
+        ex = assertThrows(IllegalArgumentException.class, () -> builder.pair(
+                "ａ", null));
+        assertThat(ex.getMessage(), is(
+                "halfwidth must not be empty (halfwidth = null)"));
+        ex = assertThrows(IllegalArgumentException.class, () -> builder.pairs(
+                null));
+        assertThat(ex.getMessage(), is("pairs must not be null."));
+        IllegalStateException ise = assertThrows(IllegalStateException.class,
+                () -> builder.build());
+        assertThat(ise.getMessage(), is("no pair is added."));
+    }
+}
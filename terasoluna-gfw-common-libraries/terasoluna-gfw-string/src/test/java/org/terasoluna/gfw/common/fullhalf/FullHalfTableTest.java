@@ -0,0 +1,96 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class FullHalfTableTest {
+
+    private final FullHalfTable table = new FullHalfTable(new FullHalfPairsBuilder()
+            .pair("Ａ", "A").pair("ガ", "ｶﾞ").pair("カ", "ｶ").pair("ｶ", "k")
+            .pair("ギ", "ｷﾞ").pair("ゲ", "ｶﾞ").pair("Ｘ", "A").pair("Ａ", "a")
+            .build().pairs());
+
+    @Test
+    public void testAppendHalfwidth() throws Exception {
+        StringBuilder sb = new StringBuilder();
+
+        table.appendHalfwidth('Ａ', sb);
+        table.appendHalfwidth('ガ', sb);
+        table.appendHalfwidth('あ', sb);
+        table.appendHalfwidth('Ｘ', sb);
+
+        assertThat(sb.toString(), is("AｶﾞあA"));
+        assertThat(table.hasHalfwidth('カ'), is(true));
+        assertThat(table.hasHalfwidth('キ'), is(false));
+    }
+
+    @Test
+    public void testFullwidth() {
+        assertThat(table.fullwidth('A'), is((int) 'Ａ'));
+        assertThat(table.fullwidth('ｶ'), is((int) 'カ'));
+        assertThat(table.fullwidth('a'), is((int) 'Ａ'));
+        assertThat(table.fullwidth('B'), is(FullHalfTable.NOT_MAPPED));
+    }
+
+    @Test
+    public void testFullwidth_combined() {
+        // the former definition is preferred
+        assertThat(table.fullwidth('ｶ', 'ﾞ'), is((int) 'ガ'));
+        assertThat(table.fullwidth('ｷ', 'ﾞ'), is((int) 'ギ'));
+        assertThat(table.fullwidth('ｸ', 'ﾞ'), is(FullHalfTable.NOT_MAPPED));
+        assertThat(table.fullwidth('A', 'ﾞ'), is(FullHalfTable.NOT_MAPPED));
+    }
+
+    @Test
+    public void testOf_shared() {
+        Set<FullHalfPair> pairs = new FullHalfPairsBuilder().pair("ガ", "ｶﾞ")
+                .pair("カ", "ｶ").pair("ヵ", "ｶ").build().pairs();
+        Set<FullHalfPair> samePairs = new FullHalfPairsBuilder().pair("ガ",
+                "ｶﾞ").pair("カ", "ｶ").pair("ヵ", "ｶ").build().pairs();
+        Set<FullHalfPair> reordered = new FullHalfPairsBuilder().pair("ヵ",
+                "ｶ").pair("カ", "ｶ").pair("ガ", "ｶﾞ").build().pairs();
+
+        FullHalfTable shared = FullHalfTable.of(pairs);
+
+        assertThat(FullHalfTable.of(samePairs), sameInstance(shared));
+        // the order matters since the former definition is preferred
+        assertThat(FullHalfTable.of(reordered), not(sameInstance(shared)));
+        assertThat(FullHalfTable.of(reordered).fullwidth('ｶ'), is((int) 'ヵ'));
+        assertThat(shared.fullwidth('ｶ'), is((int) 'カ'));
+    }
+
+    @Test
+    public void testOf_notAffectedByModification() {
+        Set<FullHalfPair> pairs = new LinkedHashSet<FullHalfPair>(new FullHalfPairsBuilder()
+                .pair("Ｑ", "Q").build().pairs());
+        FullHalfTable table = FullHalfTable.of(pairs);
+
+        pairs.add(new FullHalfPair("Ｒ", "R"));
+
+        assertThat(table.fullwidth('R'), is(FullHalfTable.NOT_MAPPED));
+        assertThat(FullHalfTable.of(pairs), not(sameInstance(table)));
+        assertThat(FullHalfTable.of(pairs).fullwidth('R'), is((int) 'Ｒ'));
+    }
+}
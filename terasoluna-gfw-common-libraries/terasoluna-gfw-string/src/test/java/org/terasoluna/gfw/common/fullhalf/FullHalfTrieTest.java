@@ -0,0 +1,48 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class FullHalfTrieTest {
+
+    @Test
+    public void testLongestMatch() {
+        Map<String, String> mappings = new LinkedHashMap<String, String>();
+        mappings.put("a", "A");
+        mappings.put("abc", "X");
+        mappings.put("ｶﾞ", "ガ");
+        FullHalfTrie trie = new FullHalfTrie(mappings);
+
+        int state = trie.longestMatch("zabcd", 1, 5);
+        assertThat(trie.output(state), is("X"));
+        assertThat(trie.length(state), is(3));
+        // "abc" is beyond the end
+        state = trie.longestMatch("zabcd", 1, 3);
+        assertThat(trie.output(state), is("A"));
+        assertThat(trie.length(state), is(1));
+        assertThat(trie.longestMatch("ｶﾞ", 0, 2) != 0, is(true));
+        assertThat(trie.longestMatch("ｶ", 0, 1), is(0));
+        assertThat(trie.longestMatch("b", 0, 1), is(0));
+        assertThat(trie.maxLength(), is(3));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FullHalfWriterTest {
+
+    @Test
+    public void testToFullwidth_voicedMarkInNextWrite() throws Exception {
+        StringWriter sw = new StringWriter();
+
+        try (Writer writer = FullHalfWriter.toFullwidth(sw,
+                DefaultFullHalf.INSTANCE)) {
+            writer.write("ｱｶ");
+            assertThat(sw.toString(), is("ア"));
+            writer.write('ﾞ');
+            writer.write("ﾊ".toCharArray());
+            writer.write("");
+            writer.write("ﾟﾞ");
+            writer.flush();
+            assertThat(sw.toString(), is("アガパ"));
+            writer.write("ｷ");
+        }
+
+        assertThat(sw.toString(), is("アガパ゛キ"));
+    }
+
+    @Test
+    public void testToFullwidth_sameAsConverter() throws Exception {
+        Random random = new Random(0);
+        String s = randomHalfwidth(random, FullHalfWriter.BUFFER_SIZE * 3);
+        StringWriter sw = new StringWriter();
+
+        try (Writer writer = FullHalfWriter.toFullwidth(sw,
+                DefaultFullHalf.INSTANCE)) {
+            // write randomly split chunks including longer ones than the buffer
+            for (int i = 0; i < s.length();) {
+                int n = Math.min(s.length() - i, random.nextBoolean() ? random
+                        .nextInt(4) : random.nextInt(FullHalfWriter.BUFFER_SIZE
+                                * 2));
+                writer.write(s, i, n);
+                i += n;
+            }
+        }
+
+        assertThat(sw.toString(), is(DefaultFullHalf.INSTANCE.toFullwidth(s)));
+    }
+
+    @Test
+    public void testToHalfwidth() throws Exception {
+        String s = DefaultFullHalf.INSTANCE.toFullwidth(randomHalfwidth(
+                new Random(0), FullHalfWriter.BUFFER_SIZE * 3));
+        StringWriter sw = new StringWriter();
+
+        try (Writer writer = FullHalfWriter.toHalfwidth(sw,
+                DefaultFullHalf.INSTANCE)) {
+            writer.write(s.toCharArray(), 0, 3);
+            writer.write(s.substring(3));
+        }
+
+        assertThat(sw.toString(), is(DefaultFullHalf.INSTANCE.toHalfwidth(s)));
+    }
+
+    @Test
+    public void testCreate_null() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> FullHalfWriter
+                        .toFullwidth(null, DefaultFullHalf.INSTANCE));
+        assertThat(ex.getMessage(), is("out must not be null."));
+        ex = assertThrows(IllegalArgumentException.class,
+                () -> FullHalfWriter.toHalfwidth(new StringWriter(), null));
+        assertThat(ex.getMessage(), is("converter must not be null."));
+    }
+
+    static String randomHalfwidth(Random random, int length) {
+        String alphabet = "ｱｶｳﾊﾜｦﾞﾟaA1 !ｰあ漢ﾊﾋﾌﾍﾎ";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
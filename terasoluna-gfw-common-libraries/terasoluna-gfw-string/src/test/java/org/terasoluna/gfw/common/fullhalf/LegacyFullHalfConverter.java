@@ -0,0 +1,101 @@
+/*
+ * Copyright(c) 2013 NTT DATA Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.terasoluna.gfw.common.fullhalf;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Map based implementation of {@link FullHalfConverter} up to 5.6.x, kept as the reference to check the compatibility.
+ */
+public class LegacyFullHalfConverter {
+
+    private final Map<String, FullHalfPair> fullwidthMap = new HashMap<String, FullHalfPair>();
+
+    private final Map<String, FullHalfPair> halfwidthMap = new HashMap<String, FullHalfPair>();
+
+    private final FullHalfPairs.AppendablePredicate predicate;
+
+    public LegacyFullHalfConverter(FullHalfPairs pairs) {
+        for (FullHalfPair pair : pairs.pairs()) {
+            if (!fullwidthMap.containsKey(pair.fullwidth())) {
+                fullwidthMap.put(pair.fullwidth(), pair);
+            }
+            if (!halfwidthMap.containsKey(pair.halfwidth())) {
+                halfwidthMap.put(pair.halfwidth(), pair);
+            }
+        }
+        this.predicate = pairs.predicate();
+    }
+
+    public String toHalfwidth(String fullwidth) {
+        if (fullwidth == null || fullwidth.isEmpty()) {
+            return fullwidth;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < fullwidth.length(); i++) {
+            String s = String.valueOf(fullwidth.charAt(i));
+            builder.append(halfwidth(s));
+        }
+        return builder.toString();
+    }
+
+    public String toFullwidth(String halfwidth) {
+        if (halfwidth == null || halfwidth.isEmpty()) {
+            return halfwidth;
+        }
+        StringBuilder builder = new StringBuilder();
+        Queue<String> buffer = new LinkedList<String>();
+
+        for (int i = 0; i < halfwidth.length(); i++) {
+            char c = halfwidth.charAt(i);
+            String s = String.valueOf(c);
+            if (buffer.isEmpty()) {
+                buffer.add(s);
+                continue;
+            }
+            String prev = buffer.poll();
+            if (predicate.isAppendable(c)) {
+                FullHalfPair pair = this.halfwidthMap.get(prev + s);
+                if (pair != null) {
+                    builder.append(pair.fullwidth());
+                } else {
+                    builder.append(fullwidth(prev));
+                    builder.append(fullwidth(s));
+                }
+            } else {
+                builder.append(fullwidth(prev));
+                buffer.add(s);
+            }
+        }
+        if (!buffer.isEmpty()) {
+            builder.append(fullwidth(buffer.poll()));
+        }
+        return builder.toString();
+    }
+
+    private String fullwidth(String s) {
+        FullHalfPair pair = this.halfwidthMap.get(s);
+        return pair != null ? pair.fullwidth() : s;
+    }
+
+    private String halfwidth(String s) {
+        FullHalfPair pair = this.fullwidthMap.get(s);
+        return pair != null ? pair.halfwidth() : s;
+    }
+}